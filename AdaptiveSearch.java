@@ -0,0 +1,99 @@
+import java.util.*;
+
+/**
+ * Outlier-aware subset search.
+ *
+ * Under the usual assumption that at least (n+k)/2 shares are good, a
+ * candidate fitting that many points is the only polynomial that can, so it
+ * is accepted and the points it misses are convicted. Every subset whose
+ * candidate falls short therefore contains a bad share, and each of its
+ * members is blamed once. The search is one lexicographic walk over
+ * positions in a blame order, split into epochs of doubling length. Before
+ * each epoch the points are re-sorted by ascending blame and the walk resumes
+ * where the last epoch stopped, so shares implicated in many failed subsets
+ * drift to the end of the order and combinations containing them are reached
+ * last, if at all, while earlier positions are not replayed. A re-sort can
+ * still map a later position onto a subset already tried, which is then
+ * solved and blamed again; the walk ends after C(n, k) positions either way,
+ * and the caller falls back to the exhaustive search.
+ */
+class AdaptiveSearch {
+    /** Subsets tried in the first epoch; each later epoch doubles it. */
+    static final long FIRST_EPOCH = 256;
+
+    private AdaptiveSearch() {
+    }
+
+    /**
+     * The uniquely decodable candidate, with its misses reported as outliers
+     * (counted by how many scored candidates they disagreed with), or null
+     * once the walk has run through every position without finding one or
+     * the next epoch would take it past
+     * {@link ShamirSecretSolver.Options#maxCombinations} subsets.
+     */
+    static ShamirSecretSolver.Reconstruction reconstruct(ShamirSecretSolver.TestCaseData data,
+            ShamirSecretSolver.Options opts) {
+        List<ShamirSecretSolver.Point> pts = data.points;
+        int n = pts.size(), k = data.k;
+        if (k < 1 || n <= k)
+            return null;
+        SubsetSolver solver = SubsetSolver.create(new ShareStore(pts), opts);
+        int accept = Math.max(k + 1, (n + k + 1) / 2);
+        long[] blame = new long[n];
+        int[] misses = new int[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+        int[] pos = new int[k], idx = new int[k];
+        for (int i = 0; i < k; i++)
+            pos[i] = i;
+        long tried = 0;
+        for (long budget = FIRST_EPOCH; budget <= opts.maxCombinations - tried; tried += budget, budget *= 2) {
+            // stable, so ties keep the previous epoch's relative order
+            Arrays.sort(order, (a, b) -> Long.compare(blame[a], blame[b]));
+            // same position, new order: every index has to be remapped
+            int changed = 0;
+            for (long visited = 0; visited < budget; visited++) {
+                for (int j = changed; j < k; j++)
+                    idx[j] = order[pos[j]];
+                if (solver.solve(idx, changed) && score(solver, n, accept, misses) >= accept)
+                    return accepted(solver, pts, misses);
+                for (int i : idx)
+                    blame[i]++;
+                if ((changed = ShamirSecretSolver.nextCombination(pos, n)) < 0)
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Points the candidate fits, counting each miss; stops early once the
+     * candidate cannot reach accept.
+     */
+    private static int score(SubsetSolver solver, int n, int accept, int[] misses) {
+        int agree = 0;
+        for (int i = 0; i < n; i++) {
+            if (solver.matches(i)) {
+                agree++;
+            } else {
+                misses[i]++;
+                if (agree + n - 1 - i < accept)
+                    return agree;
+            }
+        }
+        return agree;
+    }
+
+    private static ShamirSecretSolver.Reconstruction accepted(SubsetSolver solver,
+            List<ShamirSecretSolver.Point> pts, int[] misses) {
+        ShamirSecretSolver.Reconstruction r = new ShamirSecretSolver.Reconstruction(pts);
+        for (int i = 0; i < pts.size(); i++) {
+            if (!solver.matches(i))
+                r.mismatchCounts[i] = misses[i];
+        }
+        r.coeffs = solver.coefficients();
+        r.secret = solver.secret();
+        return r;
+    }
+}
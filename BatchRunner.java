@@ -0,0 +1,153 @@
+import java.io.*;
+import java.math.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Batch mode: reconstruct every share file under a directory, or listed in a
+ * manifest, and write one result line per file.
+ *
+ * Files are handed to a bounded work-stealing pool; a semaphore caps the
+ * number of files queued or in flight so listing a huge directory does not
+ * run ahead of the solvers. Each file is searched sequentially on its worker
+ * thread, since the pool already keeps every core busy. Output lines are
+ * tab-separated, in completion order:
+ *
+ * <pre>
+ * file  secret   outliers (x:failures,... then x:conflict once for each
+ *                 x-coordinate loaded with more than one y)
+ * file  -        outliers                    no consistent polynomial
+ * file  ERROR    message
+ * </pre>
+ */
+final class BatchRunner {
+    /** Files allowed to be queued or running per pool thread. */
+    private static final int QUEUE_PER_THREAD = 4;
+
+    private final ShamirSecretSolver.Options opts;
+    private final ForkJoinPool pool;
+    private final Semaphore slots;
+    private final Writer out;
+    private final AtomicInteger solved = new AtomicInteger();
+    private final AtomicInteger unsolved = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private BatchRunner(ShamirSecretSolver.Options opts, int threads, Writer out) {
+        this.opts = opts.sequential();
+        this.pool = new ForkJoinPool(threads);
+        this.slots = new Semaphore(threads * QUEUE_PER_THREAD);
+        this.out = out;
+    }
+
+    /**
+     * Process the files named by source (a directory of *.json files, or a
+     * manifest with one path per line) with opts.parallelism threads, or one
+     * per core when it is not set, writing results to output, or to
+     * System.out if output is null.
+     */
+    static void run(Path source, Path output, ShamirSecretSolver.Options opts) throws Exception {
+        int threads = opts.parallelism > 0 ? opts.parallelism : Runtime.getRuntime().availableProcessors();
+        if (output != null) {
+            try (Writer w = Files.newBufferedWriter(output)) {
+                run(source, opts, threads, w);
+            }
+            return;
+        }
+        // flushed rather than closed: System.out stays open for the caller
+        Writer w = new BufferedWriter(new OutputStreamWriter(System.out));
+        try {
+            run(source, opts, threads, w);
+        } finally {
+            w.flush();
+        }
+    }
+
+    private static void run(Path source, ShamirSecretSolver.Options opts, int threads, Writer w) throws Exception {
+        long start = System.nanoTime();
+        BatchRunner b = new BatchRunner(opts, threads, w);
+        try {
+            b.submitAll(source);
+            b.slots.acquire(threads * QUEUE_PER_THREAD);
+        } finally {
+            b.pool.shutdown();
+        }
+        System.err.printf("Batch: %d solved, %d unsolved, %d errors in %d ms%n", b.solved.get(),
+                b.unsolved.get(), b.failed.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void submitAll(Path source) throws Exception {
+        if (Files.isDirectory(source)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(source, "*.json")) {
+                for (Path f : files)
+                    submit(f);
+            }
+            return;
+        }
+        Path base = source.toAbsolutePath().getParent();
+        try (BufferedReader r = Files.newBufferedReader(source)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#"))
+                    submit(base.resolve(line));
+            }
+        }
+    }
+
+    /** Blocks while the pool is saturated. */
+    private void submit(Path file) throws InterruptedException {
+        slots.acquire();
+        pool.execute(() -> {
+            try {
+                write(process(file));
+            } finally {
+                slots.release();
+            }
+        });
+    }
+
+    private String process(Path file) {
+        StringBuilder sb = new StringBuilder(file.toString()).append('\t');
+        try {
+            ShamirSecretSolver.Reconstruction r = ShamirSecretSolver
+                    .reconstruct(ShamirSecretSolver.parseJsonFile(file.toString()), opts);
+            if (r.secret != null) {
+                solved.incrementAndGet();
+                sb.append(r.secret);
+            } else {
+                unsolved.incrementAndGet();
+                sb.append('-');
+            }
+            sb.append('\t');
+            String sep = "";
+            for (ShamirSecretSolver.Point p : r.outliers()) {
+                sb.append(sep).append(p.x).append(':').append(r.mismatchCounts[p.id]);
+                sep = ",";
+            }
+            Set<BigInteger> conflicting = new LinkedHashSet<>();
+            for (ShamirSecretSolver.Point p : r.ingest.conflicts) {
+                if (conflicting.add(p.x)) {
+                    sb.append(sep).append(p.x).append(":conflict");
+                    sep = ",";
+                }
+            }
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            sb.append("ERROR\t").append(e.toString().replace('\t', ' ').replace('\n', ' '));
+        }
+        return sb.toString();
+    }
+
+    private void write(String line) {
+        synchronized (out) {
+            try {
+                out.write(line);
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
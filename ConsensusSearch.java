@@ -0,0 +1,107 @@
+import java.math.*;
+import java.util.*;
+
+/**
+ * Randomized (RANSAC-style) consensus search.
+ *
+ * Instead of walking combinations in lexicographic order, random k-subsets
+ * are solved and each candidate is scored by how many points it fits. With
+ * the best score so far taken as the number of good shares g, a random subset
+ * is all-good with probability q = C(g, k) / C(n, k); sampling stops once
+ * (1 - q)^trials, the chance that an all-good subset was never drawn, falls
+ * below {@link ShamirSecretSolver.Options#missProbability}. Points the winning
+ * candidate misses are reported as outliers.
+ */
+class ConsensusSearch {
+    /** Samples drawn before giving up and leaving it to the exhaustive search. */
+    static final int MAX_TRIALS = 1 << 20;
+    private static final long SEED = 0x5EED_5EEDL;
+
+    private ConsensusSearch() {
+    }
+
+    /**
+     * The best-supported candidate, or null if no candidate fits a point
+     * beyond its own subset (or sampling did not reach the confidence bound),
+     * in which case the caller should fall back to searching.
+     */
+    static ShamirSecretSolver.Reconstruction reconstruct(ShamirSecretSolver.TestCaseData data,
+            ShamirSecretSolver.Options opts) {
+        List<ShamirSecretSolver.Point> pts = data.points;
+        int n = pts.size(), k = data.k;
+        if (k < 1 || n <= k)
+            return null;
+        SubsetSolver solver = SubsetSolver.create(new ShareStore(pts), opts);
+        SplittableRandom rnd = new SplittableRandom(SEED);
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++)
+            perm[i] = i;
+        int[] idx = new int[k];
+        int[] best = null;
+        int bestScore = k;
+        BigInteger[] bestCoeffs = null;
+        BigInteger bestSecret = null;
+        double logMiss = Math.log(opts.missProbability);
+        long needed = MAX_TRIALS;
+        for (long trial = 0; trial < needed; trial++) {
+            // partial Fisher-Yates: perm[0..k-1] becomes a uniform k-subset
+            for (int i = 0; i < k; i++) {
+                int j = i + rnd.nextInt(n - i);
+                int t = perm[i];
+                perm[i] = perm[j];
+                perm[j] = t;
+            }
+            System.arraycopy(perm, 0, idx, 0, k);
+            if (!solver.solve(idx))
+                continue;
+            int score = score(solver, n, bestScore);
+            if (score <= bestScore)
+                continue;
+            bestScore = score;
+            best = idx.clone();
+            bestCoeffs = solver.coefficients();
+            bestSecret = solver.secret();
+            if (score == n)
+                break;
+            needed = Math.min(MAX_TRIALS, trial + 1 + trialsFor(bestScore, n, k, logMiss));
+        }
+        if (best == null || bestScore < n && needed >= MAX_TRIALS)
+            return null;
+        solver.solve(best);
+        ShamirSecretSolver.Reconstruction r = new ShamirSecretSolver.Reconstruction(pts);
+        for (int i = 0; i < n; i++) {
+            if (!solver.matches(i))
+                r.mismatchCounts[i] = 1;
+        }
+        r.coeffs = bestCoeffs;
+        r.secret = bestSecret;
+        return r;
+    }
+
+    /**
+     * Points the candidate fits, or any value no greater than beat once it is
+     * clear the candidate cannot exceed it.
+     */
+    private static int score(SubsetSolver solver, int n, int beat) {
+        int score = 0;
+        for (int i = 0; i < n; i++) {
+            if (solver.matches(i))
+                score++;
+            else if (score + n - 1 - i <= beat)
+                return beat;
+        }
+        return score;
+    }
+
+    /** Samples needed so that no all-good subset is drawn with probability below e^logMiss. */
+    static long trialsFor(int good, int n, int k, double logMiss) {
+        double q = 1;
+        for (int i = 0; i < k; i++)
+            q *= (double) (good - i) / (n - i);
+        if (q >= 1)
+            return 1;
+        if (q <= 0)
+            return Long.MAX_VALUE;
+        return (long) Math.ceil(logMiss / Math.log1p(-q));
+    }
+}
@@ -0,0 +1,229 @@
+import java.io.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Asynchronous diagnostics sink for the solver.
+ *
+ * Producers (any thread) claim a slot in a fixed-size ring buffer and store
+ * the event's level, message template and raw arguments; a single daemon
+ * thread formats and writes them. Nothing is converted to text on the
+ * emitting thread, and when the ring is full events are dropped and counted
+ * rather than blocking the search.
+ *
+ * High-volume events go through a {@link Sampler}, which counts every
+ * occurrence but only forwards one in every {@code sampleEvery}. Samplers
+ * belong to one unit of work (a test case), tag the events they forward with
+ * its name, and have their totals written by {@link #summarize(Sampler)},
+ * directly rather than through the ring.
+ */
+final class Diagnostics {
+    enum Level {
+        DEBUG, INFO, WARN, OFF
+    }
+
+    private static final int CAPACITY = 1 << 12;
+    private static volatile Diagnostics log;
+
+    private final PrintStream out;
+    private volatile Level level;
+    private volatile int sampleEvery;
+
+    private final Slot[] slots = new Slot[CAPACITY];
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile long written;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread drainer;
+
+    private static final class Slot {
+        volatile long seq;
+        Level level;
+        String tag, template;
+        Object a, b, c;
+    }
+
+    /**
+     * Counts occurrences of one kind of event within one unit of work and
+     * forwards a sample of them.
+     */
+    final class Sampler {
+        private final String name, tag;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder logged = new LongAdder();
+        /** Serial number for sampling; only advanced while emission is enabled. */
+        private final AtomicLong serial = new AtomicLong();
+
+        private Sampler(String name, String tag) {
+            this.name = name;
+            this.tag = tag;
+        }
+
+        /**
+         * Record one occurrence; true if this one should be emitted. Callers
+         * test this before building any arguments.
+         */
+        boolean take(Level at) {
+            count.increment();
+            if (!enabled(at) || serial.getAndIncrement() % sampleEvery != 0)
+                return false;
+            logged.increment();
+            return true;
+        }
+
+        /** Queue an event taken by {@link #take}, tagged with this sampler's unit of work. */
+        void emit(Level at, String template, Object a, Object b, Object c) {
+            Diagnostics.this.emit(at, tag, template, a, b, c);
+        }
+    }
+
+    private Diagnostics(PrintStream out, Level level, int sampleEvery) {
+        this.out = out;
+        this.level = level;
+        this.sampleEvery = sampleEvery;
+        for (int i = 0; i < CAPACITY; i++)
+            slots[i] = new Slot();
+        drainer = new Thread(this::drain, "diagnostics");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /** The process-wide sink, writing to System.out at INFO. */
+    static Diagnostics log() {
+        Diagnostics d = log;
+        if (d == null) {
+            synchronized (Diagnostics.class) {
+                if (log == null)
+                    log = new Diagnostics(System.out, Level.INFO, 1);
+                d = log;
+            }
+        }
+        return d;
+    }
+
+    void configure(Level level, int sampleEvery) {
+        if (sampleEvery < 1)
+            throw new IllegalArgumentException("sampleEvery must be positive: " + sampleEvery);
+        this.level = level;
+        this.sampleEvery = sampleEvery;
+    }
+
+    boolean enabled(Level at) {
+        return at.compareTo(level) >= 0 && level != Level.OFF;
+    }
+
+    /** A fresh sampler for events named name; tag (may be null) prefixes what it forwards. */
+    Sampler sampler(String name, String tag) {
+        return new Sampler(name, tag);
+    }
+
+    /**
+     * Queue an event; "{}" placeholders in template are replaced by a, b, c
+     * on the writer thread.
+     */
+    void emit(Level at, String template, Object a, Object b, Object c) {
+        emit(at, null, template, a, b, c);
+    }
+
+    private void emit(Level at, String tag, String template, Object a, Object b, Object c) {
+        if (!enabled(at))
+            return;
+        long t;
+        do {
+            t = tail.get();
+            if (t - head >= CAPACITY) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        Slot s = slots[(int) t & (CAPACITY - 1)];
+        s.level = at;
+        s.tag = tag;
+        s.template = template;
+        s.a = a;
+        s.b = b;
+        s.c = c;
+        s.seq = t + 1;
+    }
+
+    void emit(Level at, String message) {
+        emit(at, message, null, null, null);
+    }
+
+    /**
+     * Wait until everything emitted so far has been written, then write the
+     * drop summary directly, so it cannot be lost to a full ring.
+     */
+    void flush() {
+        long target = tail.get();
+        while (written < target) {
+            LockSupport.unpark(drainer);
+            LockSupport.parkNanos(100_000);
+        }
+        long lost = dropped.sumThenReset();
+        if (lost > 0)
+            write(Level.WARN, "diagnostics: {} events dropped (ring full)", lost, null, null);
+        out.flush();
+    }
+
+    /**
+     * Flush, then write the sampler's total directly if it counted anything.
+     * Call once its unit of work is finished.
+     */
+    void summarize(Sampler s) {
+        flush();
+        long n = s.count.sum();
+        if (n > 0) {
+            write(Level.INFO, "{}: {} events ({} logged)", s.name, n, s.logged.sum());
+            out.flush();
+        }
+    }
+
+    /** Format and print on the calling thread, bypassing the ring. */
+    private void write(Level at, String template, Object a, Object b, Object c) {
+        if (!enabled(at))
+            return;
+        StringBuilder sb = new StringBuilder();
+        format(sb, at, null, template, a, b, c);
+        out.println(sb);
+    }
+
+    private void drain() {
+        StringBuilder sb = new StringBuilder();
+        long h = head;
+        while (true) {
+            Slot s = slots[(int) h & (CAPACITY - 1)];
+            if (s.seq != h + 1) {
+                if (written != h) {
+                    out.flush();
+                    written = h;
+                }
+                LockSupport.parkNanos(1_000_000);
+                continue;
+            }
+            Level at = s.level;
+            String tag = s.tag, template = s.template;
+            Object a = s.a, b = s.b, c = s.c;
+            s.a = s.b = s.c = null;
+            head = ++h;
+            format(sb, at, tag, template, a, b, c);
+            out.println(sb);
+        }
+    }
+
+    private static void format(StringBuilder sb, Level at, String tag, String template, Object a, Object b,
+            Object c) {
+        sb.setLength(0);
+        if (at != Level.INFO)
+            sb.append('[').append(at).append("] ");
+        if (tag != null)
+            sb.append(tag).append(": ");
+        Object[] args = { a, b, c };
+        int arg = 0, from = 0, p;
+        while ((p = template.indexOf("{}", from)) >= 0 && arg < args.length) {
+            sb.append(template, from, p).append(args[arg++]);
+            from = p + 2;
+        }
+        sb.append(template, from, template.length());
+    }
+}
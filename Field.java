@@ -0,0 +1,171 @@
+import java.math.*;
+
+/**
+ * Arithmetic in a prime field GF(p).
+ *
+ * Elements are canonical residues in [0, p). {@link #of(BigInteger)} picks the
+ * word-sized Montgomery implementation whenever p fits in a long.
+ */
+public interface Field {
+    BigInteger modulus();
+
+    BigInteger reduce(BigInteger a);
+
+    BigInteger add(BigInteger a, BigInteger b);
+
+    BigInteger sub(BigInteger a, BigInteger b);
+
+    BigInteger mul(BigInteger a, BigInteger b);
+
+    BigInteger inv(BigInteger a);
+
+    static Field of(BigInteger p) {
+        if (p.signum() <= 0 || !p.isProbablePrime(64))
+            throw new IllegalArgumentException("Modulus is not prime: " + p);
+        if (p.bitLength() < 64 && p.testBit(0))
+            return new MontgomeryField(p.longValue());
+        return new PrimeField(p);
+    }
+
+    /**
+     * GF(p) on BigInteger residues, for moduli of any size.
+     */
+    final class PrimeField implements Field {
+        private final BigInteger p;
+
+        PrimeField(BigInteger p) {
+            this.p = p;
+        }
+
+        public BigInteger modulus() {
+            return p;
+        }
+
+        public BigInteger reduce(BigInteger a) {
+            return a.mod(p);
+        }
+
+        public BigInteger add(BigInteger a, BigInteger b) {
+            BigInteger r = a.add(b);
+            return r.compareTo(p) >= 0 ? r.subtract(p) : r;
+        }
+
+        public BigInteger sub(BigInteger a, BigInteger b) {
+            BigInteger r = a.subtract(b);
+            return r.signum() < 0 ? r.add(p) : r;
+        }
+
+        public BigInteger mul(BigInteger a, BigInteger b) {
+            return a.multiply(b).mod(p);
+        }
+
+        public BigInteger inv(BigInteger a) {
+            if (a.signum() == 0)
+                throw new ArithmeticException("Singular matrix");
+            return a.modInverse(p);
+        }
+    }
+
+    /**
+     * GF(p) for odd p < 2^63 in Montgomery form with R = 2^64.
+     *
+     * The BigInteger methods satisfy the {@link Field} contract on ordinary
+     * residues; hot loops should use the long methods on Montgomery-form values
+     * ({@link #toMont}, {@link #mulMont}, ...) instead.
+     */
+    final class MontgomeryField implements Field {
+        final long p;
+        /** -p^-1 mod 2^64 */
+        private final long pNegInv;
+        /** R^2 mod p */
+        private final long r2;
+        final long one;
+
+        MontgomeryField(long p) {
+            if (p <= 2 || (p & 1) == 0)
+                throw new IllegalArgumentException("Montgomery modulus must be an odd prime: " + p);
+            this.p = p;
+            long inv = p; // correct to 3 bits for odd p
+            for (int i = 0; i < 5; i++)
+                inv *= 2 - p * inv;
+            this.pNegInv = -inv;
+            this.r2 = BigInteger.ONE.shiftLeft(128).mod(BigInteger.valueOf(p)).longValue();
+            this.one = toMont(1);
+        }
+
+        /** Montgomery reduction of hi:lo, where hi:lo < p * 2^64. */
+        private long redc(long hi, long lo) {
+            long m = lo * pNegInv;
+            long mpHi = Math.multiplyHigh(m, p) + ((m >> 63) & p);
+            long t = hi + mpHi + (lo != 0 ? 1 : 0);
+            return Long.compareUnsigned(t, p) >= 0 ? t - p : t;
+        }
+
+        long mulMont(long a, long b) {
+            return redc(Math.multiplyHigh(a, b), a * b);
+        }
+
+        long addMont(long a, long b) {
+            long r = a + b;
+            return r >= p || r < 0 ? r - p : r;
+        }
+
+        long subMont(long a, long b) {
+            long r = a - b;
+            return r < 0 ? r + p : r;
+        }
+
+        long toMont(long a) {
+            return mulMont(Math.floorMod(a, p), r2);
+        }
+
+        long fromMont(long a) {
+            return redc(0, a);
+        }
+
+        long toMont(BigInteger a) {
+            return toMont(a.mod(BigInteger.valueOf(p)).longValue());
+        }
+
+        /** (aR)^-1 R, i.e. the inverse kept in Montgomery form. */
+        long invMont(long a) {
+            long v = fromMont(a);
+            if (v == 0)
+                throw new ArithmeticException("Singular matrix");
+            long r0 = p, r1 = v, s0 = 0, s1 = 1;
+            while (r1 != 0) {
+                long q = r0 / r1, t = r0 - q * r1;
+                r0 = r1;
+                r1 = t;
+                t = s0 - q * s1;
+                s0 = s1;
+                s1 = t;
+            }
+            return toMont(s0);
+        }
+
+        public BigInteger modulus() {
+            return BigInteger.valueOf(p);
+        }
+
+        public BigInteger reduce(BigInteger a) {
+            return a.mod(modulus());
+        }
+
+        public BigInteger add(BigInteger a, BigInteger b) {
+            return BigInteger.valueOf(addMont(a.longValue(), b.longValue()));
+        }
+
+        public BigInteger sub(BigInteger a, BigInteger b) {
+            return BigInteger.valueOf(subMont(a.longValue(), b.longValue()));
+        }
+
+        public BigInteger mul(BigInteger a, BigInteger b) {
+            return BigInteger.valueOf(fromMont(mulMont(toMont(a.longValue()), toMont(b.longValue()))));
+        }
+
+        public BigInteger inv(BigInteger a) {
+            return BigInteger.valueOf(fromMont(invMont(toMont(a.longValue()))));
+        }
+    }
+}
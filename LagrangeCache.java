@@ -0,0 +1,101 @@
+import java.math.*;
+import java.util.*;
+
+/**
+ * Bounded LRU cache of Lagrange-at-zero weights, keyed by the sorted tuple of
+ * x-coordinates.
+ *
+ * For nodes x_0..x_(k-1), f(0) = sum(y_i * w_i) / d where w_i = lcm / den_i *
+ * prod_(j != i) x_j, den_i = prod_(j != i) (x_j - x_i) and d = lcm of the
+ * den_i. The weights depend only on the x-set, so once it has been seen a
+ * reconstruction is a k-term dot product and one exact division.
+ */
+final class LagrangeCache {
+    /** x-sets kept; least recently used entries are evicted beyond this. */
+    static final int CAPACITY = 256;
+
+    private static final Map<List<BigInteger>, Weights> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<List<BigInteger>, Weights> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    private LagrangeCache() {
+    }
+
+    /** Weights for one sorted x-set. */
+    static final class Weights {
+        final BigInteger[] w;
+        final BigInteger den;
+
+        Weights(BigInteger[] x) {
+            int m = x.length;
+            BigInteger[] num = new BigInteger[m];
+            BigInteger[] di = new BigInteger[m];
+            BigInteger lcm = BigInteger.ONE;
+            for (int i = 0; i < m; i++) {
+                BigInteger n = BigInteger.ONE, d = BigInteger.ONE;
+                for (int j = 0; j < m; j++) {
+                    if (j == i)
+                        continue;
+                    n = n.multiply(x[j]);
+                    d = d.multiply(x[j].subtract(x[i]));
+                }
+                if (d.signum() == 0)
+                    throw new ArithmeticException("Singular matrix");
+                num[i] = n;
+                di[i] = d;
+                lcm = lcm.divide(lcm.gcd(d)).multiply(d.abs());
+            }
+            w = new BigInteger[m];
+            for (int i = 0; i < m; i++)
+                w[i] = num[i].multiply(lcm.divide(di[i]));
+            den = lcm;
+        }
+
+        /** f(0) for y aligned with the sorted x-set. */
+        BigInteger atZero(BigInteger[] y) {
+            BigInteger sum = BigInteger.ZERO;
+            for (int i = 0; i < w.length; i++)
+                sum = sum.add(y[i].multiply(w[i]));
+            BigInteger[] qr = sum.divideAndRemainder(den);
+            if (qr[1].signum() != 0)
+                throw new ArithmeticException("No integer polynomial through subset");
+            return qr[0];
+        }
+    }
+
+    /**
+     * The interpolant through (x_i, y_i) evaluated at zero, using cached
+     * weights for the x-set when present.
+     */
+    static BigInteger atZero(BigInteger[] x, BigInteger[] y) {
+        int m = x.length;
+        Integer[] order = new Integer[m];
+        for (int i = 0; i < m; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> x[a].compareTo(x[b]));
+        BigInteger[] sx = new BigInteger[m], sy = new BigInteger[m];
+        for (int i = 0; i < m; i++) {
+            sx[i] = x[order[i]];
+            sy[i] = y[order[i]];
+        }
+        return weights(sx).atZero(sy);
+    }
+
+    static Weights weights(BigInteger[] sortedX) {
+        List<BigInteger> key = List.of(sortedX);
+        synchronized (CACHE) {
+            Weights cached = CACHE.get(key);
+            if (cached != null)
+                return cached;
+        }
+        // computed outside the lock; a concurrent miss on the same key just
+        // builds an identical entry
+        Weights fresh = new Weights(sortedX);
+        synchronized (CACHE) {
+            CACHE.put(key, fresh);
+        }
+        return fresh;
+    }
+}
@@ -0,0 +1,272 @@
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Polynomial multiplication over GF(p) by number-theoretic transform.
+ *
+ * A {@link Prime} runs an iterative radix-2 transform on long[] residues in
+ * Montgomery form; the root-of-unity table for each transform size is built
+ * on first use and cached. When p is itself word-sized with enough factors of
+ * two in p - 1 the product is transformed modulo p directly. Otherwise the
+ * exact integer product is computed modulo as many word-sized NTT primes as
+ * its coefficients need, recombined by Garner's CRT and reduced mod p.
+ */
+final class Ntt {
+    /** 2-adic order of the CRT primes, q = c * 2^CRT_LOG + 1. */
+    private static final int CRT_LOG = 40;
+    /** CRT primes beyond which the product is left to Karatsuba. */
+    static final int MAX_CRT_PRIMES = 16;
+    /**
+     * Shorter operand length from which the CRT route beats Karatsuba; the
+     * direct transform wins wherever Karatsuba would run at all.
+     */
+    static final int CRT_THRESHOLD = 256;
+    private static final List<Prime> CRT_PRIMES = new ArrayList<>();
+    private static final Map<BigInteger, Ntt> KERNELS = new ConcurrentHashMap<>();
+
+    private final BigInteger p;
+    /** Transform modulo p itself, or null when p is not NTT-friendly. */
+    private final Prime direct;
+
+    private Ntt(BigInteger p) {
+        this.p = p;
+        Prime d = null;
+        // worth a direct transform once p - 1 has at least 2^8 as a factor
+        if (p.bitLength() < 63 && p.testBit(0) && p.longValue() > 2
+                && Long.numberOfTrailingZeros(p.longValue() - 1) >= 8)
+            d = new Prime(p.longValue());
+        this.direct = d;
+    }
+
+    /** The shared kernel for prime modulus p. */
+    static Ntt forModulus(BigInteger p) {
+        return KERNELS.computeIfAbsent(p, Ntt::new);
+    }
+
+    /**
+     * a * b with coefficients reduced into [0, p), or null when p needs the
+     * CRT route and either operand is shorter than {@link #CRT_THRESHOLD} or
+     * the product would need more than {@link #MAX_CRT_PRIMES} primes.
+     */
+    BigInteger[] multiply(BigInteger[] a, BigInteger[] b) {
+        int len = a.length + b.length - 1;
+        int log = ceilLog2(len);
+        if (direct != null && log <= direct.maxLog) {
+            long[] r = direct.multiply(direct.residues(a), direct.residues(b), len);
+            BigInteger[] out = new BigInteger[len];
+            for (int i = 0; i < len; i++)
+                out[i] = BigInteger.valueOf(r[i]);
+            return out;
+        }
+        // each coefficient is a sum of min(|a|, |b|) products below p^2
+        int bits = 2 * p.bitLength() + ceilLog2(Math.min(a.length, b.length)) + 1;
+        int t = (bits + 60) / 61;
+        if (Math.min(a.length, b.length) < CRT_THRESHOLD || t > MAX_CRT_PRIMES || log > Prime.MAX_LOG)
+            return null;
+        List<Prime> primes = crtPrimes(t);
+        a = canonical(a);
+        b = canonical(b);
+        long[][] r = new long[t][];
+        for (int j = 0; j < t; j++) {
+            Prime q = primes.get(j);
+            r[j] = q.multiply(q.residues(a), q.residues(b), len);
+        }
+        return garner(primes, r, len);
+    }
+
+    /**
+     * Garner's mixed-radix recombination: coefficient i is
+     * v0 + v1 q0 + v2 q0 q1 + ..., with v_j solved modulo q_j.
+     */
+    private BigInteger[] garner(List<Prime> primes, long[][] r, int len) {
+        int t = r.length;
+        // prefix[j][l] = q0 ... q(l-1) mod q_j and inv[j] = 1 / prefix[j][j], in
+        // Montgomery form, so a product with a plain residue comes out plain
+        long[][] prefix = new long[t][];
+        long[] inv = new long[t];
+        for (int j = 0; j < t; j++) {
+            Field.MontgomeryField f = primes.get(j).f;
+            prefix[j] = new long[j + 1];
+            prefix[j][0] = f.one;
+            for (int l = 1; l <= j; l++)
+                prefix[j][l] = f.mulMont(prefix[j][l - 1], f.toMont(primes.get(l - 1).q));
+            inv[j] = j == 0 ? f.one : f.invMont(prefix[j][j]);
+        }
+        BigInteger[] out = new BigInteger[len];
+        long[] v = new long[t];
+        for (int i = 0; i < len; i++) {
+            for (int j = 0; j < t; j++) {
+                Field.MontgomeryField f = primes.get(j).f;
+                long acc = 0;
+                for (int l = 0; l < j; l++)
+                    acc = f.addMont(acc, f.mulMont(v[l], prefix[j][l]));
+                v[j] = f.mulMont(f.subMont(r[j][i], acc), inv[j]);
+            }
+            BigInteger x = BigInteger.valueOf(v[t - 1]);
+            for (int j = t - 2; j >= 0; j--)
+                x = x.multiply(BigInteger.valueOf(primes.get(j).q)).add(BigInteger.valueOf(v[j]));
+            out[i] = x.mod(p);
+        }
+        return out;
+    }
+
+    /** a with every coefficient in [0, p), so the integer product meets the CRT bound. */
+    private BigInteger[] canonical(BigInteger[] a) {
+        for (BigInteger c : a) {
+            if (c.signum() < 0 || c.compareTo(p) >= 0) {
+                BigInteger[] r = new BigInteger[a.length];
+                for (int i = 0; i < a.length; i++)
+                    r[i] = a[i].mod(p);
+                return r;
+            }
+        }
+        return a;
+    }
+
+    /** The first t primes c * 2^CRT_LOG + 1 below 2^62, largest first. */
+    private static List<Prime> crtPrimes(int t) {
+        synchronized (CRT_PRIMES) {
+            long c = CRT_PRIMES.isEmpty() ? (1L << (62 - CRT_LOG)) - 1
+                    : (CRT_PRIMES.get(CRT_PRIMES.size() - 1).q >>> CRT_LOG) - 1;
+            for (; CRT_PRIMES.size() < t; c--) {
+                long q = (c << CRT_LOG) + 1;
+                if (BigInteger.valueOf(q).isProbablePrime(64))
+                    CRT_PRIMES.add(new Prime(q));
+            }
+            return new ArrayList<>(CRT_PRIMES.subList(0, t));
+        }
+    }
+
+    static int ceilLog2(int n) {
+        return n <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(n - 1);
+    }
+
+    /**
+     * Radix-2 transforms modulo one odd prime q below 2^63, for sizes up to
+     * the largest power of two dividing q - 1.
+     */
+    static final class Prime {
+        /** Largest transform size, as log2, whatever q allows. */
+        static final int MAX_LOG = 30;
+
+        final long q;
+        final Field.MontgomeryField f;
+        /** log2 of the largest supported transform size. */
+        final int maxLog;
+        /** Primitive 2^maxLog-th root of unity, Montgomery form. */
+        private final long root;
+        private final BigInteger modulus;
+        /** Per log2 size: powers w^0 .. w^(n/2 - 1) of the forward (inverse) root. */
+        private final AtomicReferenceArray<long[]> forward, backward;
+
+        Prime(long q) {
+            this.q = q;
+            this.f = new Field.MontgomeryField(q);
+            this.modulus = BigInteger.valueOf(q);
+            this.maxLog = Math.min(Long.numberOfTrailingZeros(q - 1), MAX_LOG);
+            long w = 0;
+            for (long g = 2;; g++) {
+                // g^((q-1)/2^s) generates the 2^s-th roots unless its half power is 1
+                w = pow(f.toMont(g), (q - 1) >>> Long.numberOfTrailingZeros(q - 1));
+                long h = w;
+                for (int i = 1; i < Long.numberOfTrailingZeros(q - 1); i++)
+                    h = f.mulMont(h, h);
+                if (h != f.one)
+                    break;
+            }
+            for (int i = maxLog; i < Long.numberOfTrailingZeros(q - 1); i++)
+                w = f.mulMont(w, w);
+            this.root = w;
+            this.forward = new AtomicReferenceArray<>(maxLog + 1);
+            this.backward = new AtomicReferenceArray<>(maxLog + 1);
+        }
+
+        private long pow(long b, long e) {
+            long r = f.one;
+            for (; e != 0; e >>>= 1) {
+                if ((e & 1) != 0)
+                    r = f.mulMont(r, b);
+                b = f.mulMont(b, b);
+            }
+            return r;
+        }
+
+        /** Montgomery-form residues of a modulo q. */
+        long[] residues(BigInteger[] a) {
+            long[] r = new long[a.length];
+            for (int i = 0; i < a.length; i++)
+                r[i] = f.toMont(a[i].bitLength() < 64 ? a[i].longValue() : a[i].mod(modulus).longValue());
+            return r;
+        }
+
+        /**
+         * The first len coefficients of a * b, as canonical residues, for
+         * Montgomery-form a and b.
+         */
+        long[] multiply(long[] a, long[] b, int len) {
+            int log = ceilLog2(len);
+            int n = 1 << log;
+            long[] fa = Arrays.copyOf(a, n), fb = Arrays.copyOf(b, n);
+            transform(fa, log, false);
+            transform(fb, log, false);
+            for (int i = 0; i < n; i++)
+                fa[i] = f.mulMont(fa[i], fb[i]);
+            transform(fa, log, true);
+            // 1/n folded into the conversion out of Montgomery form
+            long nInv = f.invMont(f.toMont(n));
+            long[] r = new long[len];
+            for (int i = 0; i < len; i++)
+                r[i] = f.fromMont(f.mulMont(fa[i], nInv));
+            return r;
+        }
+
+        /** In-place transform of size 2^log, unscaled in the inverse direction. */
+        void transform(long[] a, int log, boolean inverse) {
+            int n = 1 << log;
+            for (int i = 1, j = 0; i < n; i++) {
+                int bit = n >> 1;
+                for (; (j & bit) != 0; bit >>= 1)
+                    j ^= bit;
+                j ^= bit;
+                if (i < j) {
+                    long t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                }
+            }
+            long[] w = twiddles(log, inverse);
+            for (int len = 2, step = n >> 1; len <= n; len <<= 1, step >>= 1) {
+                int half = len >> 1;
+                for (int i = 0; i < n; i += len) {
+                    for (int j = 0; j < half; j++) {
+                        long u = a[i + j], v = f.mulMont(a[i + j + half], w[j * step]);
+                        a[i + j] = f.addMont(u, v);
+                        a[i + j + half] = f.subMont(u, v);
+                    }
+                }
+            }
+        }
+
+        private long[] twiddles(int log, boolean inverse) {
+            if (log > maxLog)
+                throw new ArithmeticException("Transform of size 2^" + log + " exceeds modulus " + q);
+            AtomicReferenceArray<long[]> cache = inverse ? backward : forward;
+            long[] t = cache.get(log);
+            if (t == null) {
+                long w = root;
+                for (int i = log; i < maxLog; i++)
+                    w = f.mulMont(w, w);
+                if (inverse)
+                    w = f.invMont(w);
+                t = new long[Math.max(1, (1 << log) >> 1)];
+                t[0] = f.one;
+                for (int i = 1; i < t.length; i++)
+                    t[i] = f.mulMont(t[i - 1], w);
+                cache.compareAndSet(log, null, t);
+            }
+            return t;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Fork-join version of the exhaustive k-subset search.
+ *
+ * The lexicographic combination sequence is addressed by rank, so a task owns
+ * a rank interval, unranks its first combination and then walks successors.
+ * The first worker whose candidate validates against every point publishes it
+ * and all other tasks stop at their next iteration. Each leaf task walks its
+ * interval with its own search context, so nothing outlives the search on a
+ * shared pool's threads; the contexts' mismatch counts are merged once the
+ * pool is done.
+ */
+class ParallelSearch {
+    /** Combinations a leaf task walks before checking for work to split. */
+    private static final long MIN_GRAIN = 256;
+
+    private final ShamirSecretSolver.TestCaseData data;
+    private final ShamirSecretSolver.Options opts;
+    private final ShareStore store;
+    private final Diagnostics.Sampler mismatches;
+    private final int n;
+    private final long[][] binom;
+    private final long grain;
+    private final AtomicReference<ShamirSecretSolver.Reconstruction> found = new AtomicReference<>();
+    /** Mismatch counters of finished leaf tasks, one stripe per leaf. */
+    private final Queue<int[]> stripes = new ConcurrentLinkedQueue<>();
+
+    private ParallelSearch(ShamirSecretSolver.TestCaseData data, ShamirSecretSolver.Options opts, long total) {
+        this.data = data;
+        this.opts = opts;
+        this.store = new ShareStore(data.points);
+        this.mismatches = ShamirSecretSolver.mismatchSampler(data, opts);
+        this.n = store.size();
+        this.binom = binomials(n, data.k);
+        this.grain = Math.max(MIN_GRAIN, total / (opts.parallelism * 16L));
+    }
+
+    static ShamirSecretSolver.Reconstruction search(ShamirSecretSolver.TestCaseData data,
+            ShamirSecretSolver.Options opts) {
+        int n = data.points.size();
+        long total = binomials(n, data.k)[n][data.k];
+        if (total == Long.MAX_VALUE)
+            throw new ArithmeticException("Too many combinations for C(" + n + ", " + data.k + ")");
+        ParallelSearch s = new ParallelSearch(data, opts, total);
+        ForkJoinPool pool = opts.searchPool != null ? opts.searchPool : new ForkJoinPool(opts.parallelism);
+        try {
+            pool.invoke(s.new Range(0, total));
+        } finally {
+            if (pool != opts.searchPool)
+                pool.shutdown();
+        }
+        ShamirSecretSolver.Reconstruction r = s.found.get();
+        if (r == null)
+            r = new ShamirSecretSolver.Reconstruction(data.points);
+        for (int[] c : s.stripes)
+            r.addCounts(c);
+        r.mismatches = s.mismatches;
+        return r;
+    }
+
+    /** Combinations with ranks in [lo, hi). */
+    private class Range extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final long lo, hi;
+
+        Range(long lo, long hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute() {
+            if (found.get() != null)
+                return;
+            if (hi - lo > grain) {
+                long mid = lo + (hi - lo) / 2;
+                invokeAll(new Range(lo, mid), new Range(mid, hi));
+                return;
+            }
+            SearchContext w = new SearchContext(store, opts, mismatches);
+            stripes.add(w.counts);
+            int[] idx = unrank(lo);
+            int changed = 0;
+            for (long r = lo; r < hi && found.get() == null; r++) {
+                if (w.accepts(idx, changed)) {
+                    ShamirSecretSolver.Reconstruction res = new ShamirSecretSolver.Reconstruction(data.points);
+                    res.coeffs = w.solver.coefficients();
+                    res.secret = w.solver.secret();
+                    found.compareAndSet(null, res);
+                    return;
+                }
+                changed = ShamirSecretSolver.nextCombination(idx, n);
+            }
+        }
+    }
+
+    /** The combination at the given lexicographic rank. */
+    int[] unrank(long rank) {
+        int k = data.k;
+        int[] idx = new int[k];
+        int v = 0;
+        for (int i = 0; i < k; i++) {
+            // combinations that start with v at position i
+            while (binom[n - v - 1][k - i - 1] <= rank) {
+                rank -= binom[n - v - 1][k - i - 1];
+                v++;
+            }
+            idx[i] = v++;
+        }
+        return idx;
+    }
+
+    /** Pascal's triangle C(i, j) for j <= k, saturating at Long.MAX_VALUE. */
+    static long[][] binomials(int n, int k) {
+        long[][] c = new long[n + 1][k + 1];
+        for (int i = 0; i <= n; i++) {
+            c[i][0] = 1;
+            for (int j = 1; j <= Math.min(i, k); j++) {
+                long s = c[i - 1][j - 1] + c[i - 1][j];
+                c[i][j] = s < 0 ? Long.MAX_VALUE : s;
+            }
+        }
+        return c;
+    }
+}
@@ -0,0 +1,207 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Staged processing of many test cases: parse, solve, report.
+ *
+ * Parsing (file I/O and base conversion) runs on virtual threads when the
+ * runtime has them and on a cached platform pool otherwise; solving runs on a
+ * fixed pool of platform threads; a single writer thread reports results in
+ * submission order. The stages are joined by bounded queues, and submit()
+ * blocks once capacity jobs are between parsing and being reported, which
+ * also bounds the writer's reorder buffer.
+ */
+final class Pipeline implements AutoCloseable {
+    /** Receives each job, in submission order, on the writer thread. */
+    interface Reporter {
+        void report(Job job) throws Exception;
+    }
+
+    /** One test case moving through the stages. */
+    static final class Job {
+        final long seq;
+        final String file;
+        ShamirSecretSolver.TestCaseData data;
+        ShamirSecretSolver.Reconstruction result;
+        /** Set if parsing or solving failed; result is then null. */
+        Exception error;
+
+        Job(long seq, String file) {
+            this.seq = seq;
+            this.file = file;
+        }
+    }
+
+    private static final Job END = new Job(-1, null);
+
+    private final ShamirSecretSolver.Options opts;
+    private final Reporter reporter;
+    private final Semaphore inFlight;
+    private final ExecutorService parsers = ioExecutor();
+    private final ExecutorService solvers;
+    private final int solverThreads;
+    private final BlockingQueue<Job> parsed;
+    private final BlockingQueue<Job> solved;
+    private final Thread writer;
+    private final AtomicReference<Exception> reportError = new AtomicReference<>();
+    private long nextSeq;
+
+    /**
+     * If opts asks for a parallel subset search, test cases are solved one at
+     * a time with it; otherwise one per core, each searched sequentially.
+     */
+    Pipeline(ShamirSecretSolver.Options opts, int capacity, Reporter reporter) {
+        this.reporter = reporter;
+        if (opts.parallelism > 1) {
+            this.opts = opts;
+            this.solverThreads = 1;
+        } else {
+            this.opts = opts.sequential();
+            this.solverThreads = Runtime.getRuntime().availableProcessors();
+        }
+        this.inFlight = new Semaphore(capacity);
+        this.parsed = new ArrayBlockingQueue<>(capacity + solverThreads);
+        this.solved = new ArrayBlockingQueue<>(capacity + 1);
+        this.solvers = Executors.newFixedThreadPool(solverThreads);
+        for (int i = 0; i < solverThreads; i++)
+            solvers.execute(this::solveLoop);
+        this.writer = new Thread(this::writeLoop, "pipeline-writer");
+        writer.start();
+    }
+
+    /**
+     * Virtual-thread-per-task executor where available (looked up reflectively
+     * so the code still runs on runtimes without it), else a cached pool.
+     */
+    private static ExecutorService ioExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /** Queue a file; blocks while the pipeline is at capacity. */
+    void submit(String file) throws InterruptedException {
+        inFlight.acquire();
+        Job job = new Job(nextSeq++, file);
+        parsers.execute(() -> {
+            try {
+                job.data = ShamirSecretSolver.parseJsonFile(file);
+            } catch (Exception e) {
+                job.error = e;
+            }
+            putUninterruptibly(parsed, job);
+        });
+    }
+
+    private void solveLoop() {
+        Job job;
+        while ((job = takeUninterruptibly(parsed)) != END) {
+            if (job.error == null) {
+                try {
+                    job.result = ShamirSecretSolver.reconstruct(job.data, opts);
+                } catch (Exception e) {
+                    job.error = e;
+                }
+            }
+            putUninterruptibly(solved, job);
+        }
+    }
+
+    private void writeLoop() {
+        Map<Long, Job> pending = new HashMap<>();
+        long next = 0;
+        Job job;
+        while ((job = takeUninterruptibly(solved)) != END) {
+            pending.put(job.seq, job);
+            while ((job = pending.remove(next)) != null) {
+                try {
+                    reporter.report(job);
+                } catch (Exception e) {
+                    reportError.compareAndSet(null, e);
+                }
+                next++;
+                inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * Wait for every submitted job to be reported, then stop the stages; an
+     * interrupt is deferred until then. Rethrows the first exception raised
+     * by the reporter, wrapped in an IOException if it is checked and not one.
+     */
+    public void close() throws IOException {
+        boolean interrupted = awaitUninterruptibly(parsers);
+        for (int i = 0; i < solverThreads; i++)
+            putUninterruptibly(parsed, END);
+        interrupted |= awaitUninterruptibly(solvers);
+        putUninterruptibly(solved, END);
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        Exception e = reportError.get();
+        if (e instanceof IOException)
+            throw (IOException) e;
+        if (e instanceof RuntimeException)
+            throw (RuntimeException) e;
+        if (e != null)
+            throw new IOException(e);
+    }
+
+    /** Shut the pool down and wait for it; true if interrupted meanwhile. */
+    private static boolean awaitUninterruptibly(ExecutorService pool) {
+        pool.shutdown();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                return interrupted;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+    }
+
+    private static void putUninterruptibly(BlockingQueue<Job> q, Job job) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    q.put(job);
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Job takeUninterruptibly(BlockingQueue<Job> q) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return q.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+}
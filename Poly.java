@@ -0,0 +1,293 @@
+import java.math.*;
+import java.util.*;
+
+/**
+ * Dense polynomial arithmetic over the integers or over GF(p).
+ *
+ * Polynomials are BigInteger arrays of coefficients from the constant term
+ * up; arrays are never mutated once returned. Over GF(p) every result is
+ * reduced into [0, p).
+ */
+final class Poly {
+    /** Operand length from which multiply() switches to Karatsuba. */
+    static final int KARATSUBA_THRESHOLD = 32;
+
+    static final Poly INTEGERS = new Poly(null);
+
+    /** The prime modulus, or null for integer polynomials. */
+    final BigInteger modulus;
+    /** Transform kernel for the modulus, or null over the integers; see {@link Ntt}. */
+    private final Ntt ntt;
+
+    private Poly(BigInteger modulus) {
+        this.modulus = modulus;
+        this.ntt = modulus == null ? null : Ntt.forModulus(modulus);
+    }
+
+    static Poly over(Field f) {
+        return new Poly(f.modulus());
+    }
+
+    private BigInteger reduce(BigInteger a) {
+        return modulus == null ? a : a.mod(modulus);
+    }
+
+    BigInteger[] multiply(BigInteger[] a, BigInteger[] b) {
+        if (a.length == 0 || b.length == 0)
+            return new BigInteger[0];
+        if (Math.min(a.length, b.length) < KARATSUBA_THRESHOLD)
+            return schoolbook(a, b);
+        if (ntt != null) {
+            BigInteger[] r = ntt.multiply(a, b);
+            if (r != null)
+                return r;
+        }
+        int h = Math.max(a.length, b.length) / 2;
+        BigInteger[] a0 = slice(a, 0, h), a1 = slice(a, h, a.length);
+        BigInteger[] b0 = slice(b, 0, h), b1 = slice(b, h, b.length);
+        BigInteger[] z0 = multiply(a0, b0);
+        BigInteger[] z2 = multiply(a1, b1);
+        BigInteger[] z1 = multiply(add(a0, a1), add(b0, b1));
+        BigInteger[] r = zeros(a.length + b.length - 1);
+        addInto(r, z0, 0, 1);
+        addInto(r, z1, h, 1);
+        addInto(r, z0, h, -1);
+        addInto(r, z2, h, -1);
+        addInto(r, z2, 2 * h, 1);
+        return reduceAll(r);
+    }
+
+    private BigInteger[] schoolbook(BigInteger[] a, BigInteger[] b) {
+        BigInteger[] r = zeros(a.length + b.length - 1);
+        for (int i = 0; i < a.length; i++) {
+            if (a[i].signum() == 0)
+                continue;
+            for (int j = 0; j < b.length; j++)
+                r[i + j] = r[i + j].add(a[i].multiply(b[j]));
+        }
+        return reduceAll(r);
+    }
+
+    BigInteger[] add(BigInteger[] a, BigInteger[] b) {
+        BigInteger[] r = zeros(Math.max(a.length, b.length));
+        addInto(r, a, 0, 1);
+        addInto(r, b, 0, 1);
+        return reduceAll(r);
+    }
+
+    private BigInteger[] reduceAll(BigInteger[] r) {
+        if (modulus != null) {
+            for (int i = 0; i < r.length; i++)
+                r[i] = r[i].mod(modulus);
+        }
+        return r;
+    }
+
+    /** r[off + i] += sign * a[i], for the part of a that fits in r. */
+    private static void addInto(BigInteger[] r, BigInteger[] a, int off, int sign) {
+        for (int i = 0; i < a.length && off + i < r.length; i++)
+            r[off + i] = sign > 0 ? r[off + i].add(a[i]) : r[off + i].subtract(a[i]);
+    }
+
+    /**
+     * a mod m for monic m by long division; exact over the integers since no
+     * division by a leading coefficient is needed.
+     */
+    BigInteger[] remainderMonic(BigInteger[] a, BigInteger[] m) {
+        int dm = m.length - 1;
+        if (a.length <= dm)
+            return a;
+        BigInteger[] r = a.clone();
+        for (int i = r.length - 1; i >= dm; i--) {
+            BigInteger c = reduce(r[i]);
+            if (c.signum() == 0)
+                continue;
+            for (int j = 0; j < dm; j++)
+                r[i - dm + j] = r[i - dm + j].subtract(c.multiply(m[j]));
+        }
+        return reduceAll(Arrays.copyOf(r, dm));
+    }
+
+    /**
+     * a mod m for monic m of degree d and deg a < 2d, using the precomputed
+     * inverse of reverse(m) to at least d terms: two multiplications in place
+     * of quadratic long division.
+     */
+    BigInteger[] remainderMonic(BigInteger[] a, BigInteger[] m, BigInteger[] revInverse) {
+        int d = m.length - 1;
+        if (a.length <= d)
+            return a;
+        int qLen = a.length - d;
+        BigInteger[] revA = new BigInteger[qLen];
+        for (int i = 0; i < qLen; i++)
+            revA[i] = a[a.length - 1 - i];
+        BigInteger[] revQ = truncate(multiply(revA, slice(revInverse, 0, qLen)), qLen);
+        BigInteger[] q = new BigInteger[qLen];
+        for (int i = 0; i < qLen; i++)
+            q[i] = revQ[qLen - 1 - i];
+        BigInteger[] qm = multiply(q, slice(m, 0, d));
+        BigInteger[] r = new BigInteger[d];
+        for (int i = 0; i < d; i++)
+            r[i] = reduce(i < qm.length ? a[i].subtract(qm[i]) : a[i]);
+        return r;
+    }
+
+    /**
+     * Power series inverse of h (with h[0] = 1) modulo X^n, by Newton
+     * iteration g <- g (2 - h g).
+     */
+    BigInteger[] inverseSeries(BigInteger[] h, int n) {
+        BigInteger[] g = { BigInteger.ONE };
+        for (int len = 1; len < n;) {
+            len = Math.min(2 * len, n);
+            BigInteger[] hg = truncate(multiply(slice(h, 0, len), g), len);
+            for (int i = 0; i < len; i++)
+                hg[i] = hg[i].negate();
+            hg[0] = hg[0].add(BigInteger.TWO);
+            g = truncate(multiply(g, reduceAll(hg)), len);
+        }
+        return g;
+    }
+
+    /** The formal derivative of a. */
+    BigInteger[] derivative(BigInteger[] a) {
+        if (a.length <= 1)
+            return new BigInteger[0];
+        BigInteger[] r = new BigInteger[a.length - 1];
+        for (int i = 1; i < a.length; i++)
+            r[i - 1] = a[i].multiply(BigInteger.valueOf(i));
+        return reduceAll(r);
+    }
+
+    /** The first n coefficients of a, zero-padded. */
+    private static BigInteger[] truncate(BigInteger[] a, int n) {
+        BigInteger[] r = Arrays.copyOf(a, n);
+        for (int i = a.length; i < n; i++)
+            r[i] = BigInteger.ZERO;
+        return r;
+    }
+
+    private static BigInteger[] slice(BigInteger[] a, int from, int to) {
+        return from >= a.length ? new BigInteger[0] : Arrays.copyOfRange(a, from, Math.min(to, a.length));
+    }
+
+    static BigInteger[] zeros(int n) {
+        BigInteger[] r = new BigInteger[n];
+        Arrays.fill(r, BigInteger.ZERO);
+        return r;
+    }
+
+    /**
+     * Products of (X - x_i) over a balanced binary tree of the points, for
+     * evaluating many polynomials at the same point set. The reversed-node
+     * inverses used for fast remaindering are computed once per node on first
+     * use and shared by every later evaluation.
+     */
+    static final class SubproductTree {
+        final Poly ring;
+        /** levels.get(0) holds the leaves X - x_i; the last level is the root. */
+        final List<BigInteger[][]> levels = new ArrayList<>();
+        private final List<BigInteger[][]> inverses = new ArrayList<>();
+        final int size;
+
+        SubproductTree(BigInteger[] x, Poly ring) {
+            this.ring = ring;
+            size = x.length;
+            BigInteger[][] level = new BigInteger[x.length][];
+            for (int i = 0; i < x.length; i++)
+                level[i] = ring.reduceAll(new BigInteger[] { x[i].negate(), BigInteger.ONE });
+            levels.add(level);
+            inverses.add(new BigInteger[level.length][]);
+            while (level.length > 1) {
+                BigInteger[][] up = new BigInteger[(level.length + 1) / 2][];
+                for (int i = 0; i < up.length; i++)
+                    up[i] = 2 * i + 1 < level.length ? ring.multiply(level[2 * i], level[2 * i + 1]) : level[2 * i];
+                levels.add(up);
+                inverses.add(new BigInteger[up.length][]);
+                level = up;
+            }
+        }
+
+        /** f(x_i) for every point, by descending the remainder tree. */
+        BigInteger[] evaluate(BigInteger[] f) {
+            BigInteger[] out = new BigInteger[size];
+            if (size > 0)
+                descend(ring.reduceAll(f.clone()), levels.size() - 1, 0, out);
+            return out;
+        }
+
+        private void descend(BigInteger[] f, int level, int i, BigInteger[] out) {
+            BigInteger[] node = levels.get(level)[i];
+            BigInteger[] r;
+            if (f.length <= node.length - 1)
+                r = f;
+            else if (f.length <= 2 * (node.length - 1))
+                r = ring.remainderMonic(f, node, inverse(level, i));
+            else
+                r = ring.remainderMonic(f, node);
+            if (level == 0) {
+                out[i] = r.length == 0 ? BigInteger.ZERO : r[0];
+                return;
+            }
+            BigInteger[][] below = levels.get(level - 1);
+            descend(r, level - 1, 2 * i, out);
+            if (2 * i + 1 < below.length)
+                descend(r, level - 1, 2 * i + 1, out);
+        }
+
+        /**
+         * Coefficients of the unique polynomial of degree below size taking
+         * y[i] at x_i; GF(p) only. With M the root product, the Lagrange
+         * weights y_i / M'(x_i) come from one multipoint evaluation of M' and
+         * are combined back up the tree as r = r_left M_right + r_right M_left,
+         * for O(M(k) log k) work overall. Throws ArithmeticException if two
+         * points share an x.
+         */
+        BigInteger[] interpolate(BigInteger[] y) {
+            BigInteger p = ring.modulus;
+            if (p == null)
+                throw new IllegalStateException("Fast interpolation needs a field");
+            if (size == 0)
+                return new BigInteger[0];
+            BigInteger[] d = evaluate(ring.derivative(levels.get(levels.size() - 1)[0]));
+            // batched inversion of the M'(x_i): one modInverse for all points
+            BigInteger[] prefix = new BigInteger[size];
+            BigInteger acc = BigInteger.ONE;
+            for (int i = 0; i < size; i++) {
+                if (d[i].signum() == 0)
+                    throw new ArithmeticException("Singular matrix");
+                prefix[i] = acc;
+                acc = acc.multiply(d[i]).mod(p);
+            }
+            BigInteger inv = acc.modInverse(p);
+            BigInteger[][] r = new BigInteger[size][];
+            for (int i = size - 1; i >= 0; i--) {
+                r[i] = new BigInteger[] { y[i].multiply(inv).multiply(prefix[i]).mod(p) };
+                inv = inv.multiply(d[i]).mod(p);
+            }
+            for (int level = 0; r.length > 1; level++) {
+                BigInteger[][] nodes = levels.get(level);
+                BigInteger[][] up = new BigInteger[(r.length + 1) / 2][];
+                for (int i = 0; i < up.length; i++) {
+                    up[i] = 2 * i + 1 < r.length
+                            ? ring.add(ring.multiply(r[2 * i], nodes[2 * i + 1]), ring.multiply(r[2 * i + 1], nodes[2 * i]))
+                            : r[2 * i];
+                }
+                r = up;
+            }
+            return truncate(r[0], size);
+        }
+
+        private synchronized BigInteger[] inverse(int level, int i) {
+            BigInteger[][] inv = inverses.get(level);
+            if (inv[i] == null) {
+                BigInteger[] node = levels.get(level)[i];
+                BigInteger[] rev = new BigInteger[node.length];
+                for (int j = 0; j < node.length; j++)
+                    rev[j] = node[node.length - 1 - j];
+                inv[i] = ring.inverseSeries(rev, node.length - 1);
+            }
+            return inv[i];
+        }
+    }
+}
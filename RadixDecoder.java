@@ -0,0 +1,93 @@
+import java.math.*;
+
+/**
+ * Subquadratic digit-string to BigInteger conversion.
+ *
+ * {@code new BigInteger(s, radix)} folds digits in one word at a time, which is
+ * quadratic in the length of s. Long strings are instead split so that the low
+ * half is a block of {@code LEAF_DIGITS * 2^j} digits, both halves are
+ * converted recursively and recombined as hi * radix^(LEAF_DIGITS * 2^j) + lo,
+ * letting BigInteger's Karatsuba/Toom-Cook multiplication do the heavy work.
+ * The powers of each radix are computed once and shared. Power-of-two radixes
+ * skip arithmetic altogether and are packed into bits directly.
+ */
+final class RadixDecoder {
+    /** Digits at or below which the JDK conversion is used directly. */
+    static final int LEAF_DIGITS = 1024;
+
+    /** POWERS[radix][j] = radix^(LEAF_DIGITS * 2^j), grown on demand. */
+    private static final BigInteger[][] POWERS = new BigInteger[Character.MAX_RADIX + 1][];
+
+    private RadixDecoder() {
+    }
+
+    static BigInteger decode(String s, int radix) {
+        if (radix < Character.MIN_RADIX || radix > Character.MAX_RADIX)
+            throw new NumberFormatException("Radix out of range: " + radix);
+        int start = 0;
+        boolean negative = false;
+        if (!s.isEmpty() && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+            negative = s.charAt(0) == '-';
+            start = 1;
+        }
+        int len = s.length() - start;
+        if (len <= LEAF_DIGITS)
+            return new BigInteger(s, radix);
+        for (int i = start; i < s.length(); i++) {
+            if (Character.digit(s.charAt(i), radix) < 0)
+                throw new NumberFormatException("For input string: \"" + s + "\" under radix " + radix);
+        }
+        BigInteger r = Integer.bitCount(radix) == 1 ? decodePow2(s, start, radix) : decode(s, start, s.length(), radix);
+        return negative ? r.negate() : r;
+    }
+
+    /** Power-of-two radixes map digits straight onto bits in linear time. */
+    private static BigInteger decodePow2(String s, int from, int radix) {
+        int bits = Integer.numberOfTrailingZeros(radix);
+        int digits = s.length() - from;
+        byte[] mag = new byte[(int) (((long) digits * bits + 7) / 8)];
+        long acc = 0;
+        int accBits = 0, pos = mag.length;
+        for (int i = s.length() - 1; i >= from; i--) {
+            acc |= (long) Character.digit(s.charAt(i), radix) << accBits;
+            accBits += bits;
+            while (accBits >= 8) {
+                mag[--pos] = (byte) acc;
+                acc >>>= 8;
+                accBits -= 8;
+            }
+        }
+        if (accBits > 0)
+            mag[--pos] = (byte) acc;
+        return new BigInteger(1, mag);
+    }
+
+    private static BigInteger decode(String s, int from, int to, int radix) {
+        int len = to - from;
+        if (len <= LEAF_DIGITS)
+            return new BigInteger(s.substring(from, to), radix);
+        int j = 0;
+        while ((long) LEAF_DIGITS << (j + 1) < len)
+            j++;
+        int lowDigits = LEAF_DIGITS << j;
+        BigInteger hi = decode(s, from, to - lowDigits, radix);
+        BigInteger lo = decode(s, to - lowDigits, to, radix);
+        return hi.multiply(power(radix, j)).add(lo);
+    }
+
+    private static BigInteger power(int radix, int j) {
+        synchronized (POWERS) {
+            BigInteger[] p = POWERS[radix];
+            int have = p == null ? 0 : p.length;
+            if (j < have)
+                return p[j];
+            BigInteger[] grown = new BigInteger[j + 1];
+            if (p != null)
+                System.arraycopy(p, 0, grown, 0, have);
+            for (int i = have; i <= j; i++)
+                grown[i] = i == 0 ? BigInteger.valueOf(radix).pow(LEAF_DIGITS) : grown[i - 1].multiply(grown[i - 1]);
+            POWERS[radix] = grown;
+            return grown[j];
+        }
+    }
+}
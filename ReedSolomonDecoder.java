@@ -0,0 +1,168 @@
+import java.math.*;
+import java.util.*;
+
+/**
+ * Berlekamp-Welch decoding of a share set.
+ *
+ * Shares are evaluations of a degree k-1 polynomial, i.e. a Reed-Solomon
+ * codeword, so up to floor((n-k)/2) corrupt shares can be located with one
+ * linear solve instead of a search over C(n,k) subsets. Integer share sets are
+ * decoded modulo a large prime to locate the errors and then re-solved exactly.
+ */
+class ReedSolomonDecoder {
+    /** 2^127 - 1, used to locate errors in integer share sets. */
+    static final BigInteger LOCATOR_PRIME = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+
+    /**
+     * Decoder output: the message polynomial and the roots of the error
+     * locator among the share positions.
+     */
+    static class Decoded {
+        BigInteger[] coeffs;
+        boolean[] error;
+    }
+
+    /**
+     * Locate errors with Berlekamp-Welch, then confirm with an ordinary subset
+     * solve on k of the remaining shares. Returns null if decoding fails (too
+     * many errors, repeated x, or an error vanishing modulo the locator
+     * prime), in which case the caller should fall back to searching.
+     */
+    static ShamirSecretSolver.Reconstruction reconstruct(ShamirSecretSolver.TestCaseData data,
+            ShamirSecretSolver.Options opts) {
+        List<ShamirSecretSolver.Point> pts = data.points;
+        int n = pts.size(), k = data.k;
+        Field f = opts.field != null ? opts.field : Field.of(LOCATOR_PRIME);
+        BigInteger[] x = new BigInteger[n], y = new BigInteger[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = f.reduce(pts.get(i).x);
+            y[i] = f.reduce(pts.get(i).y);
+        }
+        Decoded d = decode(x, y, k, f);
+        if (d == null)
+            return null;
+
+        int[] idx = new int[k];
+        int m = 0;
+        for (int i = 0; i < n && m < k; i++) {
+            if (!d.error[i])
+                idx[m++] = i;
+        }
+        SubsetSolver solver = SubsetSolver.create(new ShareStore(pts), opts);
+        if (m < k || !solver.solve(idx))
+            return null;
+        ShamirSecretSolver.Reconstruction r = new ShamirSecretSolver.Reconstruction(pts);
+        for (int i = 0; i < n; i++) {
+            if (solver.matches(i))
+                continue;
+            if (!d.error[i])
+                return null;
+            r.mismatchCounts[i] = 1;
+        }
+        r.coeffs = solver.coefficients();
+        r.secret = solver.secret();
+        return r;
+    }
+
+    /**
+     * Berlekamp-Welch over f: find monic E of degree e = floor((n-k)/2) and Q
+     * of degree < k+e with Q(xi) = yi E(xi) for all i, then P = Q / E.
+     * Inputs must be reduced. Returns null if no consistent P exists.
+     */
+    static Decoded decode(BigInteger[] x, BigInteger[] y, int k, Field f) {
+        int n = x.length;
+        if (n < k)
+            return null;
+        int e = (n - k) / 2;
+        int qn = k + e, cols = qn + e;
+        // unknowns: Q0..Q(qn-1), E0..E(e-1); E(e) = 1
+        BigInteger[][] a = new BigInteger[n][cols + 1];
+        for (int i = 0; i < n; i++) {
+            BigInteger pow = BigInteger.ONE;
+            for (int j = 0; j < qn; j++) {
+                a[i][j] = pow;
+                if (j < e)
+                    a[i][qn + j] = f.sub(BigInteger.ZERO, f.mul(y[i], pow));
+                else if (j == e)
+                    a[i][cols] = f.mul(y[i], pow);
+                pow = f.mul(pow, x[i]);
+            }
+        }
+        BigInteger[] sol = solveLinear(a, cols, f);
+        if (sol == null)
+            return null;
+
+        BigInteger[] q = Arrays.copyOfRange(sol, 0, qn);
+        BigInteger[] loc = new BigInteger[e + 1];
+        System.arraycopy(sol, qn, loc, 0, e);
+        loc[e] = BigInteger.ONE;
+
+        // P = Q / E, which must divide exactly
+        BigInteger[] rem = q.clone();
+        BigInteger[] p = new BigInteger[k];
+        for (int i = qn - 1; i >= e; i--) {
+            BigInteger c = rem[i];
+            p[i - e] = c;
+            if (c.signum() == 0)
+                continue;
+            for (int j = 0; j <= e; j++)
+                rem[i - e + j] = f.sub(rem[i - e + j], f.mul(c, loc[j]));
+        }
+        for (int i = 0; i < e; i++) {
+            if (rem[i].signum() != 0)
+                return null;
+        }
+
+        Decoded d = new Decoded();
+        d.coeffs = p;
+        d.error = new boolean[n];
+        int errors = 0;
+        for (int i = 0; i < n; i++) {
+            if (ShamirSecretSolver.evaluate(loc, x[i], f).signum() == 0
+                    && !ShamirSecretSolver.evaluate(p, x[i], f).equals(y[i])) {
+                d.error[i] = true;
+                errors++;
+            }
+        }
+        return errors <= e ? d : null;
+    }
+
+    /**
+     * Gauss-Jordan elimination on an augmented matrix over f. Free variables
+     * are set to zero; returns null if the system is inconsistent.
+     */
+    private static BigInteger[] solveLinear(BigInteger[][] a, int cols, Field f) {
+        int rows = a.length, r = 0;
+        int[] pivotCol = new int[rows];
+        for (int c = 0; c < cols && r < rows; c++) {
+            int piv = r;
+            while (piv < rows && a[piv][c].signum() == 0)
+                piv++;
+            if (piv == rows)
+                continue;
+            BigInteger[] tmp = a[r];
+            a[r] = a[piv];
+            a[piv] = tmp;
+            BigInteger inv = f.inv(a[r][c]);
+            for (int j = c; j <= cols; j++)
+                a[r][j] = f.mul(a[r][j], inv);
+            for (int i = 0; i < rows; i++) {
+                if (i == r || a[i][c].signum() == 0)
+                    continue;
+                BigInteger factor = a[i][c];
+                for (int j = c; j <= cols; j++)
+                    a[i][j] = f.sub(a[i][j], f.mul(factor, a[r][j]));
+            }
+            pivotCol[r++] = c;
+        }
+        for (int i = r; i < rows; i++) {
+            if (a[i][cols].signum() != 0)
+                return null;
+        }
+        BigInteger[] sol = new BigInteger[cols];
+        Arrays.fill(sol, BigInteger.ZERO);
+        for (int i = 0; i < r; i++)
+            sol[pivotCol[i]] = a[i][cols];
+        return sol;
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * State of one sequential walk through subsets: the solver with its reusable
+ * workspaces, the early-exit validator and the mismatch counters.
+ *
+ * A context is confined to one thread at a time and handed every subset of
+ * its walk (the whole search, or one leaf task's rank interval in
+ * ParallelSearch), so after the first few subsets the loop allocates nothing
+ * beyond what the arithmetic itself needs (nothing at all on the Montgomery
+ * path, or on the long integer path when every share coordinate fits in a
+ * long).
+ */
+final class SearchContext {
+    final SubsetSolver solver;
+    /** Mismatches per point position, across every subset tested here. */
+    final int[] counts;
+    private final SearchValidator validator;
+    /** The search's mismatch sampler, shared by all of its contexts; full validation only. */
+    private final Diagnostics.Sampler mismatches;
+
+    SearchContext(ShareStore store, ShamirSecretSolver.Options opts, Diagnostics.Sampler mismatches) {
+        solver = SubsetSolver.create(store, opts);
+        this.mismatches = mismatches;
+        counts = new int[store.size()];
+        validator = opts.fullValidation ? null : new SearchValidator(solver, counts, opts.exactSolve());
+    }
+
+    /**
+     * Solve for the subset idx, reusing work for the prefix idx[0..changed-1]
+     * shared with the previous call, and check the candidate against every
+     * point.
+     */
+    boolean accepts(int[] idx, int changed) {
+        return solver.solve(idx, changed) && (validator != null ? validator.test(idx)
+                : ShamirSecretSolver.validateAndLog(solver, counts, mismatches));
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.*;
+
+/**
+ * Early-exit consistency check used while searching.
+ *
+ * The search only needs to know whether a candidate fits every point, so
+ * points are tried in descending order of how often they have failed so far
+ * and the check stops at the first mismatch, which is the only one counted.
+ * Points of the subset itself are skipped when the solve is exact, since the
+ * interpolant passes through them by construction. Full per-point diagnostics
+ * remain available through {@link ShamirSecretSolver#validateAndLog}.
+ */
+final class SearchValidator {
+    private final SubsetSolver solver;
+    private final int[] counts;
+    private final boolean skipSubset;
+    /** Point positions, kept sorted by descending counts[]. */
+    private final int[] order;
+    /** mark[i] == stamp when point i belongs to the current subset. */
+    private final int[] mark;
+    private int stamp;
+
+    SearchValidator(SubsetSolver solver, int[] counts, boolean skipSubset) {
+        this.solver = solver;
+        this.counts = counts;
+        this.skipSubset = skipSubset;
+        this.order = new int[counts.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        this.mark = new int[counts.length];
+    }
+
+    /**
+     * True if the solver's candidate matches every point; otherwise counts the
+     * first failing point and moves it up the order.
+     */
+    boolean test(int[] idx) {
+        if (skipSubset) {
+            if (++stamp == 0) {
+                Arrays.fill(mark, 0);
+                stamp = 1;
+            }
+            for (int i : idx)
+                mark[i] = stamp;
+        }
+        for (int j = 0; j < order.length; j++) {
+            int i = order[j];
+            if (skipSubset && mark[i] == stamp)
+                continue;
+            if (!solver.matches(i)) {
+                counts[i]++;
+                // restore descending order; counts only grow by one
+                while (j > 0 && counts[order[j - 1]] < counts[i]) {
+                    order[j] = order[j - 1];
+                    j--;
+                }
+                order[j] = i;
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,7 +1,9 @@
 import java.io.*;
 import java.math.*;
 import java.util.*;
-import java.util.regex.*;
+import java.util.concurrent.*;
+import java.nio.channels.*;
+import java.nio.file.*;
 
 /**
  * Enhanced Shamir's Secret Sharing Solver
@@ -12,16 +14,93 @@ import java.util.regex.*;
  */
 public class ShamirSecretSolver {
     public static void main(String[] args) throws Exception {
+        Options opts = new Options();
+        Path batch = null, batchOut = null;
+        List<String> files = new ArrayList<>();
+        int serve = -1;
+        Diagnostics.Level logLevel = Diagnostics.Level.INFO;
+        int logSample = 1;
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (a.equals("--prime"))
+                opts.field = Field.of(new BigInteger(args[++i]));
+            else if (a.equals("--decimal"))
+                opts.solveMode = SolveMode.DECIMAL;
+            else if (a.equals("--exact"))
+                opts.solveMode = SolveMode.EXACT;
+            else if (a.equals("--parallel"))
+                opts.parallelism = Runtime.getRuntime().availableProcessors();
+            else if (a.equals("--threads"))
+                opts.parallelism = Integer.parseInt(args[++i]);
+            else if (a.equals("--full-validation"))
+                opts.fullValidation = true;
+            else if (a.equals("--decode"))
+                opts.strategy = Strategy.BERLEKAMP_WELCH;
+            else if (a.equals("--consensus"))
+                opts.strategy = Strategy.CONSENSUS;
+            else if (a.equals("--adaptive"))
+                opts.strategy = Strategy.ADAPTIVE;
+            else if (a.equals("--max-combinations"))
+                opts.maxCombinations = Long.parseLong(args[++i]);
+            else if (a.equals("--miss-probability"))
+                opts.missProbability = Double.parseDouble(args[++i]);
+            else if (a.equals("--secret-only"))
+                opts.secretOnly = true;
+            else if (a.equals("--batch"))
+                batch = Paths.get(args[++i]);
+            else if (a.equals("--serve"))
+                serve = Integer.parseInt(args[++i]);
+            else if (a.equals("--out"))
+                batchOut = Paths.get(args[++i]);
+            else if (a.equals("--log-level"))
+                logLevel = Diagnostics.Level.valueOf(args[++i].toUpperCase(Locale.ROOT));
+            else if (a.equals("--log-sample"))
+                logSample = Integer.parseInt(args[++i]);
+            else if (a.startsWith("--"))
+                throw new IllegalArgumentException("Unknown option: " + a);
+            else
+                files.add(a);
+        }
+        Diagnostics.log().configure(logLevel, logSample);
+        if (serve >= 0) {
+            ShareServer.serve(serve, opts);
+            return;
+        }
+        if (batch != null) {
+            BatchRunner.run(batch, batchOut, opts);
+            return;
+        }
         System.out.println("=== Shamir's Secret Sharing Solver ===");
         System.out.println("Using Vandermonde Matrix Method with Validation Logging\n");
-        // Process both test cases
-        processTestCase("testcase1.json");
-        processTestCase("testcase2.json");
+        // Process both test cases unless files were named
+        if (files.isEmpty())
+            files = List.of("testcase1.json", "testcase2.json");
+        try (Pipeline p = new Pipeline(opts, PIPELINE_CAPACITY, ShamirSecretSolver::report)) {
+            for (String f : files)
+                p.submit(f);
+        }
     }
 
+    /** Test cases allowed between parsing and reporting in main. */
+    private static final int PIPELINE_CAPACITY = 64;
+
     public static void processTestCase(String filename) throws Exception {
-        System.out.println("Processing: " + filename);
+        processTestCase(filename, new Options());
+    }
+
+    public static void processTestCase(String filename, Options opts) throws Exception {
         TestCaseData data = parseJsonFile(filename);
+        report(filename, data, reconstruct(data, opts));
+    }
+
+    private static void report(Pipeline.Job job) throws Exception {
+        if (job.error != null)
+            throw job.error;
+        report(job.file, job.data, job.result);
+    }
+
+    static void report(String filename, TestCaseData data, Reconstruction r) {
+        System.out.println("Processing: " + filename);
         System.out.println("n (total points): " + data.n);
         System.out.println("k (minimum required): " + data.k + "\n");
         System.out.println("Decoded points (x, y):");
@@ -29,70 +108,314 @@ public class ShamirSecretSolver {
             System.out.println("(" + p.x + ", " + p.y + ")");
         }
 
-        BigInteger[] secretCoeffs = null;
+        if (r.mismatches != null)
+            Diagnostics.log().summarize(r.mismatches);
+        else
+            Diagnostics.log().flush();
+
+        if (r.ingest != null && !r.ingest.isClean()) {
+            System.out.println("=== SHARE SET WARNINGS ===");
+            for (String w : r.ingest.warnings)
+                System.out.println(w);
+            for (Point p : r.ingest.duplicates)
+                System.out.println(p.x + ":" + p.y + " duplicate share, ignored");
+            for (Point p : r.ingest.conflicts)
+                System.out.println(p.x + ":" + p.y + " conflicts with another share at the same x"
+                        + (r.ingest.conflictsExcluded ? ", excluded from search" : ""));
+            System.out.println("==========================\n");
+        }
+
+        if (r.secret == null)
+            System.err.println("No valid polynomial found for " + filename + "!\n");
+        List<Point> outliers = r.outliers();
+        if (!outliers.isEmpty()) {
+            System.out.println("=== POTENTIAL INCORRECT POINTS ===");
+            for (Point p : outliers)
+                System.out.println(p.x + ":" + p.y + " failed " + r.mismatchCounts[p.id] + " times");
+            System.out.println("===================================\n");
+        }
+        if (r.secret != null) {
+            System.out.println("\n*** SECRET FOUND: " + r.secret + " ***");
+            if (r.coeffs != null)
+                System.out.println("Full polynomial coefficients (a0 ... a(k-1)): " + Arrays.toString(r.coeffs));
+            System.out.println("=".repeat(60) + "\n");
+        }
+    }
+
+    /**
+     * Search k-subsets of the points for a polynomial consistent with all of
+     * them. In secret-only mode candidates stay in Newton form and only a0 is
+     * recovered, via Lagrange at zero on the winning subset. With a field set,
+     * all arithmetic (and the reported secret) is modulo its prime.
+     *
+     * Candidates are checked with an early-exit {@link SearchValidator} unless
+     * full validation is requested, in which case every mismatch is logged and
+     * counted.
+     *
+     * The Berlekamp-Welch strategy tolerates up to floor((n-k)/2) corrupt
+     * points, reporting them as outliers; if it cannot decode, the exhaustive
+     * search runs instead. The consensus strategy likewise returns the
+     * random-subset candidate fitting the most points, and falls back when no
+     * candidate fits more than its own subset. The adaptive strategy accepts
+     * the first candidate fitting at least (n+k)/2 points, trying subsets of
+     * the least-implicated points first.
+     *
+     * The share set first goes through {@link ShareIngest}: duplicates are
+     * dropped and conflicting shares set aside, and the findings are attached
+     * to the result. Outlier counts refer to the share set actually searched.
+     */
+    public static Reconstruction reconstruct(TestCaseData data, Options opts) {
+        ShareIngest.Report ingest = ShareIngest.check(data);
+        Reconstruction r = search(ingest.data, opts);
+        r.ingest = ingest;
+        return r;
+    }
+
+    private static Reconstruction search(TestCaseData data, Options opts) {
+        int n = data.points.size(), k = data.k;
+        if (k < 1 || k > n)
+            return new Reconstruction(data.points);
+        if (opts.strategy == Strategy.BERLEKAMP_WELCH) {
+            Reconstruction decoded = ReedSolomonDecoder.reconstruct(data, opts);
+            if (decoded != null)
+                return decoded;
+        }
+        if (opts.strategy == Strategy.CONSENSUS) {
+            Reconstruction agreed = ConsensusSearch.reconstruct(data, opts);
+            if (agreed != null)
+                return agreed;
+        }
+        if (opts.strategy == Strategy.ADAPTIVE) {
+            Reconstruction decoded = AdaptiveSearch.reconstruct(data, opts);
+            if (decoded != null)
+                return decoded;
+        }
+        long total = combinations(n, k);
+        if (total > opts.maxCombinations)
+            throw new SearchLimitException("Searching " + (total == Long.MAX_VALUE ? "more than 2^63" : total)
+                    + " subsets of C(" + n + ", " + k + ") exceeds the limit of " + opts.maxCombinations);
+        if (opts.parallelism > 1)
+            return ParallelSearch.search(data, opts);
         List<Point> pts = data.points;
-        int n = data.n, k = data.k;
+        Reconstruction result = new Reconstruction(pts);
         int[] idx = new int[k];
         for (int i = 0; i < k; i++)
             idx[i] = i;
 
-        Map<Point, Integer> mismatchCounts = new HashMap<>();
+        result.mismatches = mismatchSampler(data, opts);
+        SearchContext ctx = new SearchContext(new ShareStore(pts), opts, result.mismatches);
 
-        outer: while (true) {
-            // subset arrays
-            BigInteger[] x = new BigInteger[k];
-            BigInteger[] y = new BigInteger[k];
-            for (int i = 0; i < k; i++) {
-                x[i] = pts.get(idx[i]).x;
-                y[i] = pts.get(idx[i]).y;
-            }
-            // Solve Vandermonde for this subset
-            BigInteger[] coeffs = solveVandermonde(x, y);
-            // Validate all points & log mismatches
-            List<Point> mismatches = validateAndLog(coeffs, pts);
-            if (mismatches.isEmpty()) {
-                secretCoeffs = coeffs;
-                break outer;
-            } else {
-                for (Point m : mismatches) {
-                    mismatchCounts.put(m, mismatchCounts.getOrDefault(m, 0) + 1);
-                }
+        int changed = 0;
+        do {
+            // Solve Vandermonde for this subset, reusing work for the prefix
+            // shared with the previous one; an exact solve fails outright
+            // when no integer polynomial passes through the subset
+            if (ctx.accepts(idx, changed)) {
+                result.coeffs = ctx.solver.coefficients();
+                result.secret = ctx.solver.secret();
+                break;
             }
+        } while ((changed = nextCombination(idx, n)) >= 0);
+        result.addCounts(ctx.counts);
+        return result;
+    }
 
-            // next combination
-            int pos = k - 1;
-            while (pos >= 0 && idx[pos] == n - k + pos)
-                pos--;
-            if (pos < 0)
-                break;
-            idx[pos]++;
-            for (int j = pos + 1; j < k; j++)
-                idx[j] = idx[j - 1] + 1;
+    /** C(n, k), saturating at Long.MAX_VALUE. */
+    static long combinations(int n, int k) {
+        k = Math.min(k, n - k);
+        long c = 1;
+        try {
+            for (int i = 0; i < k; i++)
+                c = Math.multiplyExact(c, n - i) / (i + 1);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
         }
+        return c;
+    }
 
-        if (secretCoeffs == null) {
-            System.err.println("No valid polynomial found for " + filename + "!\n");
-            if (!mismatchCounts.isEmpty()) {
-                System.out.println("=== POTENTIAL INCORRECT POINTS ===");
-                mismatchCounts.entrySet().stream()
-                        .sorted((a, b) -> b.getValue() - a.getValue())
-                        .forEach(e -> System.out
-                                .println(e.getKey().x + ":" + e.getKey().y + " failed " + e.getValue() + " times"));
-                System.out.println("===================================\n");
+    /**
+     * Advance idx to the next k-combination of 0..n-1 in lexicographic order.
+     * Returns the first position that changed, or -1 after the last one.
+     */
+    static int nextCombination(int[] idx, int n) {
+        int k = idx.length;
+        int pos = k - 1;
+        while (pos >= 0 && idx[pos] == n - k + pos)
+            pos--;
+        if (pos < 0)
+            return -1;
+        idx[pos]++;
+        for (int j = pos + 1; j < k; j++)
+            idx[j] = idx[j - 1] + 1;
+        return pos;
+    }
+
+    /**
+     * Secret-only reconstruction: the Lagrange interpolant evaluated at x=0.
+     * The per-term denominators are folded into their lcm so the whole sum is
+     * accumulated over one shared denominator and divided exactly once; the
+     * resulting weights are cached per x-set by {@link LagrangeCache}.
+     */
+    public static BigInteger lagrangeAtZero(BigInteger[] x, BigInteger[] y) {
+        return LagrangeCache.atZero(x, y);
+    }
+
+    /**
+     * Vandermonde solver (exact arithmetic)
+     */
+    public static BigInteger[] solveVandermonde(BigInteger[] x, BigInteger[] y) {
+        return solveVandermonde(x, y, SolveMode.EXACT);
+    }
+
+    /**
+     * Vandermonde solver with selectable arithmetic.
+     */
+    public static BigInteger[] solveVandermonde(BigInteger[] x, BigInteger[] y, SolveMode mode) {
+        return mode == SolveMode.DECIMAL ? solveDecimal(x, y) : solveNewton(x, y);
+    }
+
+    /**
+     * Exact O(k^2) solve via Newton divided differences over BigInteger.
+     * For integer nodes, the divided differences of an integer polynomial are
+     * themselves integers, so a division that leaves a remainder proves the
+     * subset has no integer interpolant and an ArithmeticException is thrown.
+     */
+    static BigInteger[] solveNewton(BigInteger[] x, BigInteger[] y) {
+        return newtonToMonomial(newtonDividedDifferences(x, y), x);
+    }
+
+    /**
+     * Newton coefficients f[x0], f[x0,x1], ..., f[x0..x(k-1)].
+     */
+    static BigInteger[] newtonDividedDifferences(BigInteger[] x, BigInteger[] y) {
+        int m = x.length;
+        // c[i] ends up holding f[x0..xi]
+        BigInteger[] c = y.clone();
+        for (int j = 1; j < m; j++) {
+            for (int i = m - 1; i >= j; i--) {
+                BigInteger dx = x[i].subtract(x[i - j]);
+                if (dx.signum() == 0)
+                    throw new ArithmeticException("Singular matrix");
+                BigInteger[] qr = c[i].subtract(c[i - 1]).divideAndRemainder(dx);
+                if (qr[1].signum() != 0)
+                    throw new ArithmeticException("No integer polynomial through subset");
+                c[i] = qr[0];
             }
-        } else {
-            System.out.println("\n*** SECRET FOUND: " + secretCoeffs[0] + " ***");
-            System.out.println("Full polynomial coefficients (a0 ... a(k-1)): " + Arrays.toString(secretCoeffs));
-            System.out.println("=".repeat(60) + "\n");
         }
+        return c;
     }
 
     /**
-     * Vandermonde solver
+     * Evaluate a Newton-form polynomial at t by nested multiplication.
      */
-    public static BigInteger[] solveVandermonde(BigInteger[] x, BigInteger[] y) {
+    static BigInteger evaluateNewton(BigInteger[] c, BigInteger[] x, BigInteger t) {
+        BigInteger acc = c[c.length - 1];
+        for (int i = c.length - 2; i >= 0; i--)
+            acc = acc.multiply(t.subtract(x[i])).add(c[i]);
+        return acc;
+    }
+
+    /**
+     * Expand c0 + (X-x0)(c1 + (X-x1)(c2 + ...)) into monomial coefficients.
+     */
+    static BigInteger[] newtonToMonomial(BigInteger[] c, BigInteger[] x) {
+        int m = c.length;
+        BigInteger[] a = new BigInteger[m];
+        Arrays.fill(a, BigInteger.ZERO);
+        a[0] = c[m - 1];
+        for (int i = m - 2; i >= 0; i--) {
+            for (int d = m - 1 - i; d >= 1; d--)
+                a[d] = a[d - 1].subtract(x[i].multiply(a[d]));
+            a[0] = c[i].subtract(x[i].multiply(a[0]));
+        }
+        return a;
+    }
+
+    /**
+     * Subset size from which the GF(p) solver interpolates through a
+     * subproduct tree instead of Newton divided differences.
+     */
+    static final int FAST_INTERPOLATION_MIN_K = 16;
+
+    /**
+     * Vandermonde solver over GF(p): Newton divided differences with field
+     * inverses, expanded to monomial form, or for k of at least
+     * {@link #FAST_INTERPOLATION_MIN_K} the O(M(k) log k) subproduct-tree
+     * interpolation. Inputs must already be reduced.
+     */
+    public static BigInteger[] solveVandermonde(BigInteger[] x, BigInteger[] y, Field f) {
+        BigInteger[] a = new BigInteger[x.length];
+        solveVandermonde(x, y, f, new BigInteger[x.length], a);
+        return a;
+    }
+
+    /**
+     * As {@link #solveVandermonde(BigInteger[], BigInteger[], Field)}, using c
+     * as the Newton workspace and writing the coefficients into a; both must
+     * hold at least x.length entries.
+     */
+    static void solveVandermonde(BigInteger[] x, BigInteger[] y, Field f, BigInteger[] c, BigInteger[] a) {
+        int m = x.length;
+        if (m >= FAST_INTERPOLATION_MIN_K) {
+            BigInteger[] r = new Poly.SubproductTree(x, Poly.over(f)).interpolate(y);
+            System.arraycopy(r, 0, a, 0, m);
+            return;
+        }
+        newtonDividedDifferences(x, y, f, c);
+        newtonToMonomial(c, x, f, a);
+    }
+
+    /**
+     * Newton coefficients over GF(p) into c[0..x.length-1]; throws
+     * ArithmeticException on a repeated x.
+     */
+    static void newtonDividedDifferences(BigInteger[] x, BigInteger[] y, Field f, BigInteger[] c) {
+        int m = x.length;
+        System.arraycopy(y, 0, c, 0, m);
+        for (int j = 1; j < m; j++) {
+            for (int i = m - 1; i >= j; i--)
+                c[i] = f.mul(f.sub(c[i], c[i - 1]), f.inv(f.sub(x[i], x[i - j])));
+        }
+    }
+
+    /**
+     * Evaluate a Newton-form polynomial over GF(p) at t.
+     */
+    static BigInteger evaluateNewton(BigInteger[] c, BigInteger[] x, BigInteger t, Field f) {
+        BigInteger acc = c[x.length - 1];
+        for (int i = x.length - 2; i >= 0; i--)
+            acc = f.add(f.mul(acc, f.sub(t, x[i])), c[i]);
+        return acc;
+    }
+
+    /**
+     * Expand Newton coefficients c over GF(p) into monomial form in a.
+     */
+    static void newtonToMonomial(BigInteger[] c, BigInteger[] x, Field f, BigInteger[] a) {
+        int m = x.length;
+        Arrays.fill(a, 0, m, BigInteger.ZERO);
+        a[0] = c[m - 1];
+        for (int i = m - 2; i >= 0; i--) {
+            for (int d = m - 1 - i; d >= 1; d--)
+                a[d] = f.sub(a[d - 1], f.mul(x[i], a[d]));
+            a[0] = f.sub(c[i], f.mul(x[i], a[0]));
+        }
+    }
+
+    /**
+     * Gaussian elimination over BigDecimal (DECIMAL128, legacy mode).
+     */
+    static BigInteger[] solveDecimal(BigInteger[] x, BigInteger[] y) {
+        return solveDecimal(x, y, new BigDecimal[x.length][x.length + 1]);
+    }
+
+    /**
+     * As {@link #solveDecimal(BigInteger[], BigInteger[])} with a caller-owned
+     * augmented matrix of at least m rows of m + 1 entries; its rows are
+     * permuted and overwritten.
+     */
+    static BigInteger[] solveDecimal(BigInteger[] x, BigInteger[] y, BigDecimal[][] V) {
         int m = x.length;
-        BigDecimal[][] V = new BigDecimal[m][m + 1];
         for (int i = 0; i < m; i++) {
             BigDecimal pow = BigDecimal.ONE;
             for (int j = 0; j < m; j++) {
@@ -112,7 +435,7 @@ public class ShamirSecretSolver {
             V[maxR] = tmp;
             BigDecimal piv = V[i][i];
             if (piv.compareTo(BigDecimal.ZERO) == 0)
-                throw new RuntimeException("Singular matrix");
+                throw new ArithmeticException("Singular matrix");
             for (int c = i; c <= m; c++)
                 V[i][c] = V[i][c].divide(piv, MathContext.DECIMAL128);
             for (int r = i + 1; r < m; r++) {
@@ -132,67 +455,235 @@ public class ShamirSecretSolver {
     }
 
     /**
-     * Validate polynomial against all points and log mismatches.
+     * The sampler for one search's mismatch diagnostics, tagged with the test
+     * case's source, or null when the search does not log mismatches.
      */
-    private static List<Point> validateAndLog(BigInteger[] coeffs, List<Point> pts) {
-        List<Point> mismatches = new ArrayList<>();
-        for (Point p : pts) {
-            BigInteger xi = p.x, acc = BigInteger.ZERO, pow = BigInteger.ONE;
-            for (BigInteger c : coeffs) {
-                acc = acc.add(c.multiply(pow));
-                pow = pow.multiply(xi);
-            }
-            if (!acc.equals(p.y)) {
-                System.out.println("Mismatch: x=" + xi + " expected=" + p.y + " got=" + acc);
-                mismatches.add(p);
+    static Diagnostics.Sampler mismatchSampler(TestCaseData data, Options opts) {
+        return opts.fullValidation ? Diagnostics.log().sampler("Mismatch", data.source) : null;
+    }
+
+    /**
+     * Validate the solver's current candidate against all points, counting
+     * each mismatch and reporting a sample of them, through the search's own
+     * sampler, as DEBUG diagnostics.
+     * Returns true if every point matches. Uses the solver's batch evaluation
+     * (a subproduct tree for large k) when it offers one, otherwise evaluates
+     * each point by Horner's rule.
+     */
+    static boolean validateAndLog(SubsetSolver solver, int[] mismatchCounts, Diagnostics.Sampler mismatches) {
+        BigInteger[] values = solver.evaluateAll();
+        boolean ok = true;
+        for (int i = 0; i < mismatchCounts.length; i++) {
+            if (values != null ? !values[i].equals(solver.expected(i)) : !solver.matches(i)) {
+                if (mismatches.take(Diagnostics.Level.DEBUG))
+                    mismatches.emit(Diagnostics.Level.DEBUG, "Mismatch: x={} expected={} got={}", solver.store.x[i],
+                            solver.expected(i), values != null ? values[i] : solver.valueAt(i));
+                mismatchCounts[i]++;
+                ok = false;
             }
         }
-        return mismatches;
+        return ok;
+    }
+
+    /**
+     * Evaluate a0 + a1*x + ... + a(k-1)*x^(k-1) by Horner's rule.
+     */
+    static BigInteger evaluate(BigInteger[] coeffs, BigInteger xi) {
+        BigInteger acc = BigInteger.ZERO;
+        for (int j = coeffs.length - 1; j >= 0; j--)
+            acc = acc.multiply(xi).add(coeffs[j]);
+        return acc;
+    }
+
+    /**
+     * Evaluate a polynomial over GF(p) by Horner's rule.
+     */
+    static BigInteger evaluate(BigInteger[] coeffs, BigInteger xi, Field f) {
+        BigInteger acc = BigInteger.ZERO;
+        for (int j = coeffs.length - 1; j >= 0; j--)
+            acc = f.add(f.mul(acc, xi), coeffs[j]);
+        return acc;
     }
 
     /**
-     * Parse JSON file manually with regex
+     * Parse a share bundle with the streaming {@link ShareParser}.
      */
     public static TestCaseData parseJsonFile(String filename) throws Exception {
-        StringBuilder sb = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String l;
-            while ((l = br.readLine()) != null)
-                sb.append(l);
-        }
-        String json = sb.toString();
-        Pattern np = Pattern.compile("\\\"n\\\"\\s*:\\s*(\\d+)");
-        Pattern kp = Pattern.compile("\\\"k\\\"\\s*:\\s*(\\d+)");
-        Matcher nm = np.matcher(json), km = kp.matcher(json);
-        int nn = 0, kk = 0;
-        if (nm.find())
-            nn = Integer.parseInt(nm.group(1));
-        if (km.find())
-            kk = Integer.parseInt(km.group(1));
-        List<Point> list = new ArrayList<>();
-        Pattern pp = Pattern.compile(
-                "\\\"(\\\\d+)\\\"\\s*:\\s*\\{[^}]*\\\"base\\\"\\s*:\\s*\\\"(\\\\d+)\\\"[^}]*\\\"value\\\"\\s*:\\s*\\\"([^\\\"]+)\\\"[^}]*\\}");
-        Matcher pm = pp.matcher(json);
-        while (pm.find()) {
-            BigInteger xi = new BigInteger(pm.group(1));
-            BigInteger yi = new BigInteger(pm.group(3), Integer.parseInt(pm.group(2)));
-            list.add(new Point(xi, yi));
-        }
-        return new TestCaseData(nn, kk, list);
-    }
-
-    static class Point {
-        BigInteger x, y;
-
-        Point(BigInteger a, BigInteger b) {
-            x = a;
-            y = b;
+        TestCaseData data = new TestCaseData(0, 0, new ArrayList<>());
+        data.source = filename;
+        try (FileChannel ch = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ShareParser.parse(ch, ShareParser.collector(data));
+        }
+        return data;
+    }
+
+    /**
+     * Arithmetic used when solving a subset.
+     */
+    enum SolveMode {
+        /** Gaussian elimination in BigDecimal with DECIMAL128 rounding. */
+        DECIMAL,
+        /** Exact Newton divided differences over BigInteger. */
+        EXACT
+    }
+
+    /**
+     * How candidate subsets are chosen.
+     */
+    enum Strategy {
+        /** Every k-combination in lexicographic order. */
+        EXHAUSTIVE,
+        /** Reed-Solomon error-locating decode, exhaustive search as fallback. */
+        BERLEKAMP_WELCH,
+        /** Random-subset consensus (RANSAC), exhaustive search as fallback. */
+        CONSENSUS,
+        /** Blame-ordered search for a uniquely decodable candidate, exhaustive as fallback. */
+        ADAPTIVE
+    }
+
+    /**
+     * Per-run solver settings.
+     */
+    static class Options {
+        SolveMode solveMode = SolveMode.EXACT;
+        Strategy strategy = Strategy.EXHAUSTIVE;
+        /**
+         * Worker threads for the subset search; 1 searches on the caller, as
+         * does 0 (not set), which also gives batch and server pools every core.
+         */
+        int parallelism;
+        /**
+         * Check every point of every candidate and log each mismatch, instead
+         * of stopping at the first failure.
+         */
+        boolean fullValidation;
+        /** Recover only a0; skips expanding candidates into monomial form. */
+        boolean secretOnly;
+        /** Reconstruct over GF(p) instead of the integers; null for integers. */
+        Field field;
+        /**
+         * Consensus strategy: accepted chance of never having sampled an
+         * all-good subset.
+         */
+        double missProbability = 1e-9;
+        /**
+         * Largest C(n, k) the exhaustive search takes on; bigger share sets
+         * are refused with a {@link SearchLimitException}.
+         */
+        long maxCombinations = Long.MAX_VALUE;
+        /** Pool for parallel searches; null gives each search its own. */
+        ForkJoinPool searchPool;
+
+        /** Whether candidates interpolate their subset exactly. */
+        boolean exactSolve() {
+            return field != null || solveMode != SolveMode.DECIMAL;
+        }
+
+        Options copy() {
+            Options o = new Options();
+            o.solveMode = solveMode;
+            o.strategy = strategy;
+            o.parallelism = parallelism;
+            o.fullValidation = fullValidation;
+            o.secretOnly = secretOnly;
+            o.field = field;
+            o.missProbability = missProbability;
+            o.maxCombinations = maxCombinations;
+            o.searchPool = searchPool;
+            return o;
+        }
+
+        /** A copy of these options that searches on the calling thread. */
+        Options sequential() {
+            Options o = copy();
+            o.parallelism = 1;
+            o.searchPool = null;
+            return o;
+        }
+    }
+
+    /**
+     * Thrown when a share set would need more subsets searched than
+     * {@link Options#maxCombinations} allows.
+     */
+    static class SearchLimitException extends ArithmeticException {
+        private static final long serialVersionUID = 1L;
+
+        SearchLimitException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Outcome of a subset search.
+     */
+    static class Reconstruction {
+        BigInteger secret;
+        /** Monomial coefficients, or null in secret-only mode. */
+        BigInteger[] coeffs;
+        /** The shares searched, in id order. */
+        final List<Point> points;
+        /** Load-time findings; set by reconstruct(). */
+        ShareIngest.Report ingest;
+        /** This search's mismatch diagnostics, or null if it logged none. */
+        Diagnostics.Sampler mismatches;
+        /** Mismatches per share id. */
+        final int[] mismatchCounts;
+
+        Reconstruction(List<Point> points) {
+            this.points = points;
+            this.mismatchCounts = new int[points.size()];
+        }
+
+        /** Add per-id counters (one stripe per searching thread) into mismatchCounts. */
+        void addCounts(int[] counts) {
+            for (int i = 0; i < counts.length; i++)
+                mismatchCounts[i] += counts[i];
+        }
+
+        /** Shares that failed at least once, most failures first. */
+        List<Point> outliers() {
+            List<Point> out = new ArrayList<>();
+            for (Point p : points) {
+                if (mismatchCounts[p.id] > 0)
+                    out.add(p);
+            }
+            out.sort((a, b) -> mismatchCounts[b.id] - mismatchCounts[a.id]);
+            return out;
+        }
+    }
+
+    /**
+     * One share. The id is its position in the test case's point list and
+     * indexes every per-share counter array.
+     */
+    static final class Point {
+        final int id;
+        final BigInteger x, y;
+
+        Point(int id, BigInteger x, BigInteger y) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Point))
+                return false;
+            Point p = (Point) o;
+            return id == p.id && x.equals(p.x) && y.equals(p.y);
+        }
+
+        public int hashCode() {
+            return (31 * id + x.hashCode()) * 31 + y.hashCode();
         }
     }
 
     static class TestCaseData {
         int n, k;
         List<Point> points;
+        /** Where the shares came from, for diagnostics; may be null. */
+        String source;
 
         TestCaseData(int n, int k, List<Point> p) {
             this.n = n;
@@ -0,0 +1,82 @@
+import java.math.*;
+import java.util.*;
+
+/**
+ * Load-time checks on a parsed share set, run before any solving.
+ *
+ * Shares are indexed by x in a hash map. A later share identical to an
+ * earlier one is dropped. Shares whose x also occurs with a different y
+ * cannot all be right and would make every subset holding two of them
+ * singular, so they are taken out of the search and reported as known
+ * outliers, unless that would leave fewer than k shares. The declared keys
+ * block is compared with what was actually loaded.
+ */
+final class ShareIngest {
+    private ShareIngest() {
+    }
+
+    /** Findings for one test case, with the share set the search should use. */
+    static final class Report {
+        /** Deduplicated, conflict-free copy (ids renumbered), or the input if nothing changed. */
+        ShamirSecretSolver.TestCaseData data;
+        /** Later copies of an identical share, dropped. */
+        final List<ShamirSecretSolver.Point> duplicates = new ArrayList<>();
+        /** Shares whose x also occurs with a different y, in load order. */
+        final List<ShamirSecretSolver.Point> conflicts = new ArrayList<>();
+        /** Whether the conflicting shares were left out of the search. */
+        boolean conflictsExcluded;
+        /** Inconsistencies between the keys block and the loaded shares. */
+        final List<String> warnings = new ArrayList<>();
+
+        boolean isClean() {
+            return duplicates.isEmpty() && conflicts.isEmpty() && warnings.isEmpty();
+        }
+    }
+
+    static Report check(ShamirSecretSolver.TestCaseData data) {
+        Report r = new Report();
+        List<ShamirSecretSolver.Point> pts = data.points;
+        Map<BigInteger, List<ShamirSecretSolver.Point>> byX = new LinkedHashMap<>();
+        for (ShamirSecretSolver.Point p : pts) {
+            List<ShamirSecretSolver.Point> same = byX.computeIfAbsent(p.x, x -> new ArrayList<>(1));
+            boolean copy = false;
+            for (ShamirSecretSolver.Point q : same)
+                copy |= q.y.equals(p.y);
+            if (copy)
+                r.duplicates.add(p);
+            else
+                same.add(p);
+        }
+        for (List<ShamirSecretSolver.Point> same : byX.values()) {
+            if (same.size() > 1)
+                r.conflicts.addAll(same);
+        }
+        r.conflicts.sort(Comparator.comparingInt(p -> p.id));
+
+        int unique = pts.size() - r.duplicates.size();
+        r.conflictsExcluded = !r.conflicts.isEmpty() && unique - r.conflicts.size() >= data.k;
+        // duplicates are reported on their own, so count distinct shares here
+        if (data.n != unique)
+            r.warnings.add("keys.n is " + data.n + " but " + unique + " distinct shares were loaded");
+        if (data.k < 1)
+            r.warnings.add("keys.k is " + data.k + "; at least one share is needed");
+        else if (data.k > byX.size())
+            r.warnings.add("keys.k is " + data.k + " but only " + byX.size() + " distinct x-coordinates were loaded");
+
+        if (r.duplicates.isEmpty() && !r.conflictsExcluded) {
+            r.data = data;
+            return r;
+        }
+        Set<ShamirSecretSolver.Point> drop = new HashSet<>(r.duplicates);
+        if (r.conflictsExcluded)
+            drop.addAll(r.conflicts);
+        List<ShamirSecretSolver.Point> kept = new ArrayList<>(pts.size() - drop.size());
+        for (ShamirSecretSolver.Point p : pts) {
+            if (!drop.contains(p))
+                kept.add(new ShamirSecretSolver.Point(kept.size(), p.x, p.y));
+        }
+        r.data = new ShamirSecretSolver.TestCaseData(data.n, data.k, kept);
+        r.data.source = data.source;
+        return r;
+    }
+}
@@ -0,0 +1,283 @@
+import java.io.*;
+import java.math.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.function.*;
+
+/**
+ * Single-pass streaming reader for share bundles.
+ *
+ * Bytes are pulled from a channel through a fixed buffer and each share is
+ * decoded and handed to the sink as soon as its object closes, so memory use
+ * is bounded by the longest single value rather than the file size. Expects
+ * the bundle layout of the test cases:
+ *
+ * <pre>
+ * { "keys": { "n": 4, "k": 3 }, "1": { "base": "10", "value": "4" }, ... }
+ * </pre>
+ *
+ * Members whose name is not an integer (other than "keys") are skipped.
+ */
+class ShareParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Receives parsed content in document order.
+     */
+    interface Sink {
+        void keys(int n, int k);
+
+        void share(BigInteger x, BigInteger y);
+    }
+
+    private final ReadableByteChannel in;
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final StringBuilder sb = new StringBuilder();
+    private long offset;
+    private boolean eof;
+
+    private ShareParser(ReadableByteChannel in) {
+        this.in = in;
+        buf.flip();
+    }
+
+    static void parse(ReadableByteChannel in, Sink sink) throws IOException {
+        new ShareParser(in).readBundle(sink);
+    }
+
+    /**
+     * A JSON array of bundles; each one is reported to a fresh sink from
+     * sinks.
+     */
+    static void parseArray(ReadableByteChannel in, Supplier<Sink> sinks) throws IOException {
+        ShareParser p = new ShareParser(in);
+        p.expect('[');
+        if (p.peekToken() == ']') {
+            p.next();
+            return;
+        }
+        do {
+            p.readBundle(sinks.get());
+        } while (p.separator(']'));
+    }
+
+    /** A sink collecting into a new TestCaseData. */
+    static Sink collector(ShamirSecretSolver.TestCaseData data) {
+        return new Sink() {
+            public void keys(int n, int k) {
+                data.n = n;
+                data.k = k;
+            }
+
+            public void share(BigInteger x, BigInteger y) {
+                data.points.add(new ShamirSecretSolver.Point(data.points.size(), x, y));
+            }
+        };
+    }
+
+    private void readBundle(Sink sink) throws IOException {
+        expect('{');
+        if (peekToken() == '}') {
+            next();
+            return;
+        }
+        do {
+            String name = readString();
+            expect(':');
+            if (name.equals("keys"))
+                readKeys(sink);
+            else if (isInteger(name) && peekToken() == '{')
+                readShare(new BigInteger(name), sink);
+            else
+                skipValue();
+        } while (separator('}'));
+    }
+
+    private void readKeys(Sink sink) throws IOException {
+        int n = 0, k = 0;
+        expect('{');
+        if (peekToken() != '}') {
+            do {
+                String name = readString();
+                expect(':');
+                if (name.equals("n"))
+                    n = Integer.parseInt(readScalar());
+                else if (name.equals("k"))
+                    k = Integer.parseInt(readScalar());
+                else
+                    skipValue();
+            } while (separator('}'));
+        } else {
+            next();
+        }
+        sink.keys(n, k);
+    }
+
+    private void readShare(BigInteger x, Sink sink) throws IOException {
+        int base = 10;
+        String value = null;
+        expect('{');
+        if (peekToken() != '}') {
+            do {
+                String name = readString();
+                expect(':');
+                if (name.equals("base"))
+                    base = Integer.parseInt(readScalar());
+                else if (name.equals("value"))
+                    value = readScalar();
+                else
+                    skipValue();
+            } while (separator('}'));
+        } else {
+            next();
+        }
+        if (value == null)
+            throw error("share " + x + " has no value");
+        sink.share(x, RadixDecoder.decode(value, base));
+    }
+
+    /** A string or bare number, returned as text. */
+    private String readScalar() throws IOException {
+        if (peekToken() == '"')
+            return readString();
+        sb.setLength(0);
+        int c;
+        while ((c = peek()) >= 0 && (Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.')) {
+            sb.append((char) c);
+            next();
+        }
+        if (sb.length() == 0)
+            throw error("expected value");
+        return sb.toString();
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        sb.setLength(0);
+        while (true) {
+            int c = next();
+            if (c < 0)
+                throw error("unterminated string");
+            if (c == '"')
+                return sb.toString();
+            if (c == '\\') {
+                c = next();
+                switch (c) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        int cp = 0;
+                        for (int i = 0; i < 4; i++)
+                            cp = cp * 16 + Character.digit(next(), 16);
+                        sb.append((char) cp);
+                        break;
+                    default:
+                        if (c < 0)
+                            throw error("unterminated string");
+                        sb.append((char) c);
+                }
+            } else {
+                sb.append((char) c);
+            }
+        }
+    }
+
+    /** Skip any JSON value, including nested objects and arrays. */
+    private void skipValue() throws IOException {
+        int c = peekToken();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = next();
+                if (c < 0)
+                    throw error("unterminated value");
+                if (c == '"') {
+                    unread();
+                    readString();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        } else {
+            readScalar();
+        }
+    }
+
+    /** Consume ',' (returns true) or the closing character (returns false). */
+    private boolean separator(char close) throws IOException {
+        int c = peekToken();
+        next();
+        if (c == ',')
+            return true;
+        if (c == close)
+            return false;
+        throw error("expected ',' or '" + close + "'");
+    }
+
+    private void expect(char ch) throws IOException {
+        if (peekToken() != ch)
+            throw error("expected '" + ch + "'");
+        next();
+    }
+
+    /** Next non-whitespace byte without consuming it, or -1 at end. */
+    private int peekToken() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\n' || c == '\r' || c == '\t')
+            next();
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (!buf.hasRemaining() && !fill())
+            return -1;
+        return buf.get(buf.position()) & 0xff;
+    }
+
+    private int next() throws IOException {
+        if (!buf.hasRemaining() && !fill())
+            return -1;
+        offset++;
+        return buf.get() & 0xff;
+    }
+
+    /** Step back over the byte just returned by next(); never crosses a refill. */
+    private void unread() {
+        offset--;
+        buf.position(buf.position() - 1);
+    }
+
+    private boolean fill() throws IOException {
+        if (eof)
+            return false;
+        buf.clear();
+        int r;
+        while ((r = in.read(buf)) == 0)
+            ;
+        buf.flip();
+        if (r < 0)
+            eof = true;
+        return buf.hasRemaining();
+    }
+
+    private IOException error(String msg) {
+        return new IOException("Malformed share bundle at byte " + offset + ": " + msg);
+    }
+
+    private static boolean isInteger(String s) {
+        if (s.isEmpty())
+            return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (!Character.isDigit(s.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+}
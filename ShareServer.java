@@ -0,0 +1,227 @@
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.math.*;
+import java.net.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Resident reconstruction service on a loopback HTTP port.
+ *
+ * <pre>
+ * POST /reconstruct        one share bundle  -> one result object
+ * POST /reconstruct/batch  [bundle, ...]     -> [result, ...]
+ * GET  /health             -> {"status": "ok"}
+ * </pre>
+ *
+ * A result is {"secret": "...", "coefficients": [...], "outliers": [{"x",
+ * "y", "failures"}]}, with big numbers as decimal strings and secret null
+ * when no consistent polynomial exists; coefficients is omitted in
+ * secret-only mode. Shares sharing an x-coordinate with a different y are
+ * listed under "conflicts", and mismatches between the keys block and the
+ * shares under "warnings"; both are omitted when empty. Malformed input gets
+ * a 400 with {"error": "..."}, and a bundle whose exhaustive search would
+ * exceed the combination limit (--max-combinations, by default
+ * {@link #DEFAULT_MAX_COMBINATIONS}) a 422; any other failure is a 500.
+ *
+ * Single requests are solved on the connection thread; the bundles of a
+ * batch, and parallel searches when --parallel is set, run on one fork-join
+ * pool owned by the server. Before the port is
+ * bound the solver and parser paths are run on synthetic share sets so the
+ * first real requests do not pay for JIT compilation.
+ */
+final class ShareServer {
+    private static final int WARMUP_ROUNDS = 2000;
+    /** Subsets a request may search when no --max-combinations was given. */
+    static final long DEFAULT_MAX_COMBINATIONS = 1_000_000;
+
+    private final ShamirSecretSolver.Options opts;
+    private final ShamirSecretSolver.Options batchOpts;
+    private final ForkJoinPool pool;
+
+    private ShareServer(ShamirSecretSolver.Options opts) {
+        pool = new ForkJoinPool(opts.parallelism > 0 ? opts.parallelism : Runtime.getRuntime().availableProcessors());
+        this.opts = opts.copy();
+        if (this.opts.maxCombinations == Long.MAX_VALUE)
+            this.opts.maxCombinations = DEFAULT_MAX_COMBINATIONS;
+        this.opts.searchPool = pool;
+        this.batchOpts = this.opts.sequential();
+    }
+
+    /** Warm up, then serve on 127.0.0.1:port until the process exits. */
+    static HttpServer serve(int port, ShamirSecretSolver.Options opts) throws IOException {
+        ShareServer s = new ShareServer(opts);
+        long start = System.nanoTime();
+        s.warmUp();
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/reconstruct", s::reconstruct);
+        http.createContext("/reconstruct/batch", s::reconstructBatch);
+        http.createContext("/health", ex -> respond(ex, 200, "{\"status\":\"ok\"}"));
+        http.setExecutor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+        http.start();
+        System.err.printf("Serving on http://%s:%d/ (warm-up %d ms)%n", http.getAddress().getHostString(),
+                http.getAddress().getPort(), (System.nanoTime() - start) / 1_000_000);
+        return http;
+    }
+
+    private void reconstruct(HttpExchange ex) throws IOException {
+        if (!post(ex))
+            return;
+        ShamirSecretSolver.TestCaseData data = new ShamirSecretSolver.TestCaseData(0, 0, new ArrayList<>());
+        StringBuilder sb = new StringBuilder();
+        try (ReadableByteChannel in = Channels.newChannel(ex.getRequestBody())) {
+            ShareParser.parse(in, ShareParser.collector(data));
+            appendResult(sb, ShamirSecretSolver.reconstruct(data, opts));
+        } catch (Exception e) {
+            respond(ex, status(e), error(e));
+            return;
+        }
+        respond(ex, 200, sb.toString());
+    }
+
+    private void reconstructBatch(HttpExchange ex) throws IOException {
+        if (!post(ex))
+            return;
+        List<ShamirSecretSolver.TestCaseData> bundles = new ArrayList<>();
+        List<ShamirSecretSolver.Reconstruction> results;
+        try (ReadableByteChannel in = Channels.newChannel(ex.getRequestBody())) {
+            ShareParser.parseArray(in, () -> {
+                ShamirSecretSolver.TestCaseData d = new ShamirSecretSolver.TestCaseData(0, 0, new ArrayList<>());
+                bundles.add(d);
+                return ShareParser.collector(d);
+            });
+            results = pool.submit(() -> bundles.parallelStream()
+                    .map(d -> ShamirSecretSolver.reconstruct(d, batchOpts)).toList()).get();
+        } catch (ExecutionException e) {
+            respond(ex, status(e.getCause()), error(e.getCause()));
+            return;
+        } catch (Exception e) {
+            respond(ex, status(e), error(e));
+            return;
+        }
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < results.size(); i++) {
+            if (i > 0)
+                sb.append(',');
+            appendResult(sb, results.get(i));
+        }
+        respond(ex, 200, sb.append(']').toString());
+    }
+
+    private static boolean post(HttpExchange ex) throws IOException {
+        if (ex.getRequestMethod().equals("POST"))
+            return true;
+        ex.getResponseHeaders().set("Allow", "POST");
+        respond(ex, 405, "{\"error\":\"POST required\"}");
+        return false;
+    }
+
+    private void appendResult(StringBuilder sb, ShamirSecretSolver.Reconstruction r) {
+        sb.append("{\"secret\":");
+        if (r.secret == null)
+            sb.append("null");
+        else
+            sb.append('"').append(r.secret).append('"');
+        if (r.coeffs != null) {
+            sb.append(",\"coefficients\":[");
+            for (int i = 0; i < r.coeffs.length; i++)
+                sb.append(i > 0 ? ",\"" : "\"").append(r.coeffs[i]).append('"');
+            sb.append(']');
+        }
+        sb.append(",\"outliers\":[");
+        String sep = "";
+        for (ShamirSecretSolver.Point p : r.outliers()) {
+            sb.append(sep).append("{\"x\":\"").append(p.x).append("\",\"y\":\"").append(p.y)
+                    .append("\",\"failures\":").append(r.mismatchCounts[p.id]).append('}');
+            sep = ",";
+        }
+        sb.append(']');
+        if (r.ingest != null && !r.ingest.conflicts.isEmpty()) {
+            sb.append(",\"conflicts\":[");
+            sep = "";
+            for (ShamirSecretSolver.Point p : r.ingest.conflicts) {
+                sb.append(sep).append("{\"x\":\"").append(p.x).append("\",\"y\":\"").append(p.y).append("\"}");
+                sep = ",";
+            }
+            sb.append(']');
+        }
+        if (r.ingest != null && !r.ingest.warnings.isEmpty()) {
+            sb.append(",\"warnings\":[");
+            sep = "";
+            for (String w : r.ingest.warnings) {
+                sb.append(sep).append(quote(w));
+                sep = ",";
+            }
+            sb.append(']');
+        }
+        sb.append('}');
+    }
+
+    /**
+     * 422 for share sets refused by the search limit, 400 for malformed
+     * bundles and share values, 500 for anything that went wrong on our side.
+     */
+    private static int status(Throwable e) {
+        if (e instanceof ShamirSecretSolver.SearchLimitException)
+            return 422;
+        return e instanceof IOException || e instanceof NumberFormatException ? 400 : 500;
+    }
+
+    private static String error(Throwable e) {
+        return "{\"error\":" + quote(String.valueOf(e.getMessage())) + "}";
+    }
+
+    /** msg as a JSON string literal. */
+    private static String quote(String msg) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < msg.length(); i++) {
+            char c = msg.charAt(i);
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c < 0x20)
+                sb.append(String.format("\\u%04x", (int) c));
+            else
+                sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    private static void respond(HttpExchange ex, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * Parse and reconstruct small synthetic bundles, one share in each
+     * corrupted, through the same paths the handlers use.
+     */
+    private void warmUp() throws IOException {
+        Random rnd = new Random(1);
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            int k = 2 + round % 7, n = k + 2;
+            BigInteger[] coeffs = new BigInteger[k];
+            for (int i = 0; i < k; i++)
+                coeffs[i] = new BigInteger(64, rnd);
+            StringBuilder json = new StringBuilder("{\"keys\":{\"n\":" + n + ",\"k\":" + k + "}");
+            for (int x = 1; x <= n; x++) {
+                BigInteger y = ShamirSecretSolver.evaluate(coeffs, BigInteger.valueOf(x));
+                if (x == 1 + round % n)
+                    y = y.add(BigInteger.ONE);
+                int base = 2 + round % 15;
+                json.append(",\"").append(x).append("\":{\"base\":\"").append(base).append("\",\"value\":\"")
+                        .append(y.toString(base)).append("\"}");
+            }
+            json.append('}');
+            ShamirSecretSolver.TestCaseData data = new ShamirSecretSolver.TestCaseData(0, 0, new ArrayList<>());
+            ShareParser.parse(Channels.newChannel(new ByteArrayInputStream(json.toString()
+                    .getBytes(StandardCharsets.US_ASCII))), ShareParser.collector(data));
+            appendResult(new StringBuilder(), ShamirSecretSolver.reconstruct(data, batchOpts));
+        }
+    }
+}
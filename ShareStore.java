@@ -0,0 +1,44 @@
+import java.math.*;
+import java.util.*;
+
+/**
+ * Read-only structure-of-arrays view of a share list for the solvers.
+ *
+ * Coordinates sit in parallel arrays indexed by point position, so a solver
+ * reads share i of a combination as x[i], y[i] instead of going through the
+ * list and a Point. When every coordinate fits in a long the set is also kept
+ * as primitive lx/ly arrays for the word-sized fast paths. Instances are
+ * immutable once built and may be shared between threads.
+ */
+final class ShareStore {
+    final BigInteger[] x, y;
+    /** x and y as longs, or null unless every coordinate fits in 64 bits. */
+    final long[] lx, ly;
+
+    ShareStore(List<ShamirSecretSolver.Point> pts) {
+        int n = pts.size();
+        x = new BigInteger[n];
+        y = new BigInteger[n];
+        boolean small = true;
+        for (int i = 0; i < n; i++) {
+            ShamirSecretSolver.Point p = pts.get(i);
+            x[i] = p.x;
+            y[i] = p.y;
+            small &= p.x.bitLength() < 64 && p.y.bitLength() < 64;
+        }
+        if (small) {
+            lx = new long[n];
+            ly = new long[n];
+            for (int i = 0; i < n; i++) {
+                lx[i] = x[i].longValue();
+                ly[i] = y[i].longValue();
+            }
+        } else {
+            lx = ly = null;
+        }
+    }
+
+    int size() {
+        return x.length;
+    }
+}
@@ -0,0 +1,446 @@
+import java.math.*;
+import java.util.*;
+
+/**
+ * Per-subset interpolation step of the combination search.
+ *
+ * A solver is bound to one share store; {@link #solve(int[])} fits a candidate
+ * polynomial through the selected points and the remaining methods inspect
+ * that candidate. Instances keep state between calls and are not thread-safe.
+ */
+abstract class SubsetSolver {
+    final ShareStore store;
+
+    SubsetSolver(ShareStore store) {
+        this.store = store;
+    }
+
+    static SubsetSolver create(ShareStore store, ShamirSecretSolver.Options opts) {
+        if (opts.field instanceof Field.MontgomeryField)
+            return new MontgomerySolver(store, (Field.MontgomeryField) opts.field, opts.secretOnly);
+        if (opts.field != null)
+            return new FieldSolver(store, opts.field, opts.secretOnly);
+        return new IntegerSolver(store, opts);
+    }
+
+    /**
+     * Fit the candidate through the points at idx; false if the subset admits
+     * no solution (repeated x, or no integer interpolant).
+     */
+    abstract boolean solve(int[] idx);
+
+    /**
+     * Like {@link #solve(int[])}, where idx[0..from-1] are known to equal the
+     * previous call's subset so backends may reuse work keyed by that prefix.
+     */
+    boolean solve(int[] idx, int from) {
+        return solve(idx);
+    }
+
+    /** Candidate value at point i, in the same representation as expected(i). */
+    abstract BigInteger valueAt(int i);
+
+    /** The y-value point i must take, reduced into the solver's domain. */
+    BigInteger expected(int i) {
+        return store.y[i];
+    }
+
+    boolean matches(int i) {
+        return valueAt(i).equals(expected(i));
+    }
+
+    /**
+     * Candidate values at every point in one batch, or null when the backend
+     * evaluates point by point.
+     */
+    BigInteger[] evaluateAll() {
+        return null;
+    }
+
+    abstract BigInteger secret();
+
+    /** Monomial coefficients a0..a(k-1), or null when not materialized. */
+    abstract BigInteger[] coefficients();
+
+    /**
+     * Exact integer (or legacy BigDecimal) interpolation.
+     *
+     * In exact mode the Newton divided-difference table is kept between calls.
+     * Row i depends only on the first i+1 subset points, so when successive
+     * subsets share a prefix only the rows from the first changed position are
+     * recomputed; in lexicographic order that is usually just the last row.
+     * Candidates are validated in Newton form and expanded on demand.
+     *
+     * When every coordinate fits in a long, rows are computed and candidates
+     * evaluated in overflow-checked long arithmetic; a row (or evaluation)
+     * that overflows is redone over BigInteger, and every later row of that
+     * subset stays there.
+     */
+    static final class IntegerSolver extends SubsetSolver {
+        private final ShamirSecretSolver.Options opts;
+        private BigInteger[] x, y, coeffs, newton;
+        /** Elimination matrix reused by DECIMAL solves. */
+        private BigDecimal[][] matrix;
+        /** table[i][j] = f[x(i-j) .. x(i)], for rows computed over BigInteger */
+        private BigInteger[][] table;
+        /** The same table for rows kept in long form (rowLong[i]). */
+        private long[][] ltable;
+        private boolean[] rowLong;
+        private long[] sx;
+        /** Every row is in long form; newton[] is then filled on demand. */
+        private boolean longNewton;
+        /** Leading rows of table that are correct for the current prefix. */
+        private int valid;
+
+        IntegerSolver(ShareStore store, ShamirSecretSolver.Options opts) {
+            super(store);
+            this.opts = opts;
+        }
+
+        boolean solve(int[] idx) {
+            return solve(idx, 0);
+        }
+
+        boolean solve(int[] idx, int from) {
+            int k = idx.length;
+            if (x == null || x.length != k) {
+                x = new BigInteger[k];
+                y = new BigInteger[k];
+                newton = new BigInteger[k];
+                table = new BigInteger[k][];
+                ltable = new long[k][];
+                for (int i = 0; i < k; i++) {
+                    table[i] = new BigInteger[i + 1];
+                    ltable[i] = new long[i + 1];
+                }
+                rowLong = new boolean[k];
+                sx = new long[k];
+                valid = 0;
+            }
+            coeffs = null;
+            if (opts.solveMode == ShamirSecretSolver.SolveMode.DECIMAL) {
+                for (int i = 0; i < k; i++) {
+                    x[i] = store.x[idx[i]];
+                    y[i] = store.y[idx[i]];
+                }
+                if (matrix == null || matrix.length != k)
+                    matrix = new BigDecimal[k][k + 1];
+                try {
+                    coeffs = ShamirSecretSolver.solveDecimal(x, y, matrix);
+                    return true;
+                } catch (ArithmeticException e) {
+                    return false;
+                }
+            }
+            for (int i = Math.min(from, valid); i < k; i++) {
+                x[i] = store.x[idx[i]];
+                y[i] = store.y[idx[i]];
+                int r = store.lx != null && (i == 0 || rowLong[i - 1]) ? longRow(idx, i) : 0;
+                if (r < 0 || r == 0 && !bigRow(i)) {
+                    valid = i;
+                    return false;
+                }
+                rowLong[i] = r > 0;
+            }
+            valid = k;
+            longNewton = true;
+            for (int i = 0; i < k; i++)
+                longNewton &= rowLong[i];
+            if (longNewton) {
+                newton[0] = null;
+            } else {
+                for (int i = 0; i < k; i++)
+                    newton[i] = rowLong[i] ? BigInteger.valueOf(ltable[i][i]) : table[i][i];
+            }
+            return true;
+        }
+
+        /**
+         * Row i in long arithmetic: 1 on success, -1 if the subset has no
+         * integer interpolant, 0 on overflow.
+         */
+        private int longRow(int[] idx, int i) {
+            long[] row = ltable[i];
+            sx[i] = store.lx[idx[i]];
+            row[0] = store.ly[idx[i]];
+            try {
+                for (int j = 1; j <= i; j++) {
+                    long dx = Math.subtractExact(sx[i], sx[i - j]);
+                    if (dx == 0)
+                        return -1;
+                    long diff = Math.subtractExact(row[j - 1], ltable[i - 1][j - 1]);
+                    if (diff % dx != 0)
+                        return -1;
+                    if (diff == Long.MIN_VALUE && dx == -1)
+                        return 0;
+                    row[j] = diff / dx;
+                }
+            } catch (ArithmeticException e) {
+                return 0;
+            }
+            return 1;
+        }
+
+        private boolean bigRow(int i) {
+            BigInteger[] row = table[i];
+            row[0] = y[i];
+            for (int j = 1; j <= i; j++) {
+                BigInteger dx = x[i].subtract(x[i - j]);
+                if (dx.signum() == 0)
+                    return false;
+                BigInteger above = rowLong[i - 1] ? BigInteger.valueOf(ltable[i - 1][j - 1]) : table[i - 1][j - 1];
+                BigInteger[] qr = row[j - 1].subtract(above).divideAndRemainder(dx);
+                if (qr[1].signum() != 0)
+                    return false;
+                row[j] = qr[0];
+            }
+            return true;
+        }
+
+        /** The long-form candidate at t; throws ArithmeticException on overflow. */
+        private long valueAtLong(long t) {
+            int k = x.length;
+            long acc = ltable[k - 1][k - 1];
+            for (int i = k - 2; i >= 0; i--)
+                acc = Math.addExact(Math.multiplyExact(acc, Math.subtractExact(t, sx[i])), ltable[i][i]);
+            return acc;
+        }
+
+        boolean matches(int i) {
+            if (coeffs == null && longNewton) {
+                try {
+                    return valueAtLong(store.lx[i]) == store.ly[i];
+                } catch (ArithmeticException e) {
+                    // an intermediate overflowed; settle it exactly
+                }
+            }
+            return super.matches(i);
+        }
+
+        BigInteger valueAt(int i) {
+            BigInteger t = store.x[i];
+            if (coeffs != null)
+                return ShamirSecretSolver.evaluate(coeffs, t);
+            return ShamirSecretSolver.evaluateNewton(bigNewton(), x, t);
+        }
+
+        private BigInteger[] bigNewton() {
+            if (longNewton && newton[0] == null) {
+                for (int i = 0; i < newton.length; i++)
+                    newton[i] = BigInteger.valueOf(ltable[i][i]);
+            }
+            return newton;
+        }
+
+        BigInteger secret() {
+            return opts.secretOnly ? ShamirSecretSolver.lagrangeAtZero(x, y) : monomial()[0];
+        }
+
+        BigInteger[] coefficients() {
+            return opts.secretOnly ? null : monomial();
+        }
+
+        private BigInteger[] monomial() {
+            if (coeffs == null)
+                coeffs = ShamirSecretSolver.newtonToMonomial(bigNewton(), x);
+            return coeffs;
+        }
+    }
+
+    /**
+     * Interpolation over an arbitrary {@link Field} on BigInteger residues.
+     *
+     * For large k, validation evaluates every point at once by descending a
+     * subproduct tree over the point x-values; the tree and its node inverses
+     * are built once and reused for every subset. Over the integers the tree's
+     * coefficient growth outweighs the saving, so only field backends use it.
+     *
+     * Below {@link ShamirSecretSolver#FAST_INTERPOLATION_MIN_K} candidates are
+     * kept in Newton form and expanded only when the coefficients are asked
+     * for, which secret-only mode never does.
+     */
+    static final class FieldSolver extends SubsetSolver {
+        /** Smallest k (and n) for which validation uses the subproduct tree. */
+        static final int MULTIPOINT_MIN_K = 128;
+
+        private final Field f;
+        private final boolean secretOnly;
+        private final BigInteger[] xs, ys;
+        /** Subset coordinates, Newton coefficients and candidate, reused per solve. */
+        private BigInteger[] x, y, newton, coeffs;
+        /** Whether coeffs holds the current candidate in monomial form. */
+        private boolean expanded;
+        private Poly.SubproductTree tree;
+
+        FieldSolver(ShareStore store, Field f, boolean secretOnly) {
+            super(store);
+            this.f = f;
+            this.secretOnly = secretOnly;
+            xs = new BigInteger[store.size()];
+            ys = new BigInteger[store.size()];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = f.reduce(store.x[i]);
+                ys[i] = f.reduce(store.y[i]);
+            }
+        }
+
+        boolean solve(int[] idx) {
+            if (x == null || x.length != idx.length) {
+                x = new BigInteger[idx.length];
+                y = new BigInteger[idx.length];
+                newton = new BigInteger[idx.length];
+                coeffs = new BigInteger[idx.length];
+            }
+            for (int i = 0; i < idx.length; i++) {
+                x[i] = xs[idx[i]];
+                y[i] = ys[idx[i]];
+            }
+            try {
+                expanded = idx.length >= ShamirSecretSolver.FAST_INTERPOLATION_MIN_K;
+                if (expanded)
+                    ShamirSecretSolver.solveVandermonde(x, y, f, newton, coeffs);
+                else
+                    ShamirSecretSolver.newtonDividedDifferences(x, y, f, newton);
+                return true;
+            } catch (ArithmeticException e) {
+                return false;
+            }
+        }
+
+        BigInteger valueAt(int i) {
+            if (expanded)
+                return ShamirSecretSolver.evaluate(coeffs, xs[i], f);
+            return ShamirSecretSolver.evaluateNewton(newton, x, xs[i], f);
+        }
+
+        BigInteger[] evaluateAll() {
+            if (coeffs.length < MULTIPOINT_MIN_K || xs.length < MULTIPOINT_MIN_K)
+                return null;
+            if (tree == null)
+                tree = new Poly.SubproductTree(xs, Poly.over(f));
+            return tree.evaluate(monomial());
+        }
+
+        BigInteger expected(int i) {
+            return ys[i];
+        }
+
+        BigInteger secret() {
+            return expanded ? coeffs[0] : ShamirSecretSolver.evaluateNewton(newton, x, BigInteger.ZERO, f);
+        }
+
+        BigInteger[] coefficients() {
+            return secretOnly ? null : monomial().clone();
+        }
+
+        private BigInteger[] monomial() {
+            if (!expanded) {
+                ShamirSecretSolver.newtonToMonomial(newton, x, f, coeffs);
+                expanded = true;
+            }
+            return coeffs;
+        }
+    }
+
+    /**
+     * Word-sized GF(p) interpolation: all per-subset work is long arithmetic on
+     * Montgomery-form residues precomputed once per share store. Candidates
+     * stay in Newton form and are expanded only for coefficients().
+     */
+    static final class MontgomerySolver extends SubsetSolver {
+        private final Field.MontgomeryField f;
+        private final boolean secretOnly;
+        private final long[] xs, ys;
+        /** Subset x, Newton coefficients and the batched-inversion workspace. */
+        private long[] x, c, prefix;
+
+        MontgomerySolver(ShareStore store, Field.MontgomeryField f, boolean secretOnly) {
+            super(store);
+            this.f = f;
+            this.secretOnly = secretOnly;
+            xs = new long[store.size()];
+            ys = new long[store.size()];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = f.toMont(store.x[i]);
+                ys[i] = f.toMont(store.y[i]);
+            }
+        }
+
+        boolean solve(int[] idx) {
+            int k = idx.length;
+            if (c == null || c.length != k) {
+                x = new long[k];
+                c = new long[k];
+                prefix = new long[k];
+            }
+            for (int i = 0; i < k; i++) {
+                x[i] = xs[idx[i]];
+                c[i] = ys[idx[i]];
+            }
+            // Newton divided differences, one batched inversion per column
+            for (int j = 1; j < k; j++) {
+                long acc = f.one;
+                for (int i = j; i < k; i++) {
+                    prefix[i] = acc;
+                    acc = f.mulMont(acc, f.subMont(x[i], x[i - j]));
+                }
+                long inv;
+                try {
+                    inv = f.invMont(acc);
+                } catch (ArithmeticException e) {
+                    return false;
+                }
+                for (int i = k - 1; i >= j; i--) {
+                    long dx = f.subMont(x[i], x[i - j]);
+                    long dxInv = f.mulMont(inv, prefix[i]);
+                    inv = f.mulMont(inv, dx);
+                    prefix[i] = f.mulMont(f.subMont(c[i], c[i - 1]), dxInv);
+                }
+                for (int i = j; i < k; i++)
+                    c[i] = prefix[i];
+            }
+            return true;
+        }
+
+        /** The Newton-form candidate at t, both in Montgomery form. */
+        private long valueAtMont(long t) {
+            long acc = c[c.length - 1];
+            for (int j = c.length - 2; j >= 0; j--)
+                acc = f.addMont(f.mulMont(acc, f.subMont(t, x[j])), c[j]);
+            return acc;
+        }
+
+        boolean matches(int i) {
+            return valueAtMont(xs[i]) == ys[i];
+        }
+
+        BigInteger valueAt(int i) {
+            return BigInteger.valueOf(f.fromMont(valueAtMont(xs[i])));
+        }
+
+        BigInteger expected(int i) {
+            return BigInteger.valueOf(f.fromMont(ys[i]));
+        }
+
+        BigInteger secret() {
+            return BigInteger.valueOf(f.fromMont(valueAtMont(0)));
+        }
+
+        BigInteger[] coefficients() {
+            if (secretOnly)
+                return null;
+            int k = c.length;
+            long[] a = new long[k];
+            a[0] = c[k - 1];
+            for (int i = k - 2; i >= 0; i--) {
+                for (int d = k - 1 - i; d >= 1; d--)
+                    a[d] = f.subMont(a[d - 1], f.mulMont(x[i], a[d]));
+                a[0] = f.subMont(c[i], f.mulMont(x[i], a[0]));
+            }
+            BigInteger[] out = new BigInteger[k];
+            for (int i = 0; i < k; i++)
+                out[i] = BigInteger.valueOf(f.fromMont(a[i]));
+            return out;
+        }
+    }
+}
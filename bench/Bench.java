@@ -0,0 +1,87 @@
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+
+/**
+ * Minimal benchmark harness in the spirit of JMH's throughput mode.
+ *
+ * Each benchmark runs timed warm-up iterations followed by measured
+ * iterations; the report gives ops/s (mean and spread over the measured
+ * iterations), bytes allocated per op from the per-thread allocation counter,
+ * the resulting allocation rate, and GC cycles observed while measuring.
+ * System.out is discarded while an op runs so logging inside the code under
+ * test costs what it would against a fast sink, not a terminal.
+ */
+final class Bench {
+    static int warmupIterations = 3;
+    static int measureIterations = 5;
+    static long iterationMillis = 400;
+
+    private static final PrintStream OUT = System.out;
+    private static final PrintStream NULL = new PrintStream(OutputStream.nullOutputStream());
+    private static boolean headerPrinted;
+    private static long blackhole;
+
+    private Bench() {
+    }
+
+    /** Keep a result alive so the JIT cannot drop the work producing it. */
+    static void consume(Object o) {
+        blackhole += System.identityHashCode(o);
+    }
+
+    static void run(String name, String params, Runnable op) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        double[] rates = new double[measureIterations];
+        long ops = 0, allocated = 0, nanos = 0, gcs = 0;
+        System.setOut(NULL);
+        try {
+            for (int i = 0; i < warmupIterations; i++)
+                iterate(op);
+            for (int i = 0; i < measureIterations; i++) {
+                long gc0 = gcCount();
+                long a0 = threads.getThreadAllocatedBytes(tid);
+                long t0 = System.nanoTime();
+                long n = iterate(op);
+                long dt = System.nanoTime() - t0;
+                allocated += threads.getThreadAllocatedBytes(tid) - a0;
+                gcs += gcCount() - gc0;
+                ops += n;
+                nanos += dt;
+                rates[i] = n * 1e9 / dt;
+            }
+        } finally {
+            System.setOut(OUT);
+        }
+        double mean = Arrays.stream(rates).average().orElse(0);
+        double spread = Math.sqrt(Arrays.stream(rates).map(r -> (r - mean) * (r - mean)).sum()
+                / Math.max(1, rates.length - 1));
+        double bytesPerOp = (double) allocated / ops;
+        double mbPerSec = allocated / 1048576.0 / (nanos / 1e9);
+        if (!headerPrinted) {
+            OUT.printf("%-22s %-36s %14s %12s %14s %10s %5s%n", "benchmark", "params", "ops/s", "error",
+                    "B/op", "MB/s", "gc");
+            headerPrinted = true;
+        }
+        OUT.printf("%-22s %-36s %14.1f %12.1f %14.1f %10.1f %5d%n", name, params, mean, spread, bytesPerOp,
+                mbPerSec, gcs);
+    }
+
+    private static long iterate(Runnable op) {
+        long end = System.nanoTime() + iterationMillis * 1_000_000L;
+        long n = 0;
+        do {
+            op.run();
+            n++;
+        } while (System.nanoTime() < end);
+        return n;
+    }
+
+    private static long gcCount() {
+        long c = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            c += Math.max(0, gc.getCollectionCount());
+        return c;
+    }
+}
@@ -0,0 +1,58 @@
+import java.math.*;
+import java.util.*;
+
+/**
+ * Compares {@link RadixDecoder} with {@code new BigInteger(s, radix)} on long
+ * random digit strings.
+ *
+ * Run from the repository root:
+ *
+ * <pre>
+ * javac -d out *.java bench/*.java
+ * java -cp out RadixBenchmark [digits...]
+ * </pre>
+ */
+public class RadixBenchmark {
+    public static void main(String[] args) {
+        int[] sizes = { 10_000, 100_000, 1_000_000 };
+        if (args.length > 0)
+            sizes = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        int[] radixes = { 2, 3, 10, 16 };
+        Random rnd = new Random(42);
+        System.out.printf("%-6s %10s %14s %14s %8s%n", "radix", "digits", "jdk (ms)", "d&c (ms)", "speedup");
+        for (int radix : radixes) {
+            for (int digits : sizes) {
+                String s = randomDigits(rnd, digits, radix);
+                int reps = Math.max(1, 2_000_000 / digits);
+                if (!new BigInteger(s, radix).equals(RadixDecoder.decode(s, radix)))
+                    throw new AssertionError("mismatch for radix " + radix + ", " + digits + " digits");
+                // warm-up
+                time(() -> new BigInteger(s, radix), reps);
+                time(() -> RadixDecoder.decode(s, radix), reps);
+                double jdk = time(() -> new BigInteger(s, radix), reps);
+                double dc = time(() -> RadixDecoder.decode(s, radix), reps);
+                System.out.printf("%-6d %10d %14.3f %14.3f %7.1fx%n", radix, digits, jdk, dc, jdk / dc);
+            }
+        }
+    }
+
+    /** Mean milliseconds per call. */
+    private static double time(java.util.function.Supplier<BigInteger> op, int reps) {
+        long sink = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < reps; i++)
+            sink += op.get().bitLength();
+        long t1 = System.nanoTime();
+        if (sink == 42)
+            System.out.print("");
+        return (t1 - t0) / 1e6 / reps;
+    }
+
+    private static String randomDigits(Random rnd, int digits, int radix) {
+        char[] c = new char[digits];
+        c[0] = Character.forDigit(1 + rnd.nextInt(radix - 1), radix);
+        for (int i = 1; i < digits; i++)
+            c[i] = Character.forDigit(rnd.nextInt(radix), radix);
+        return new String(c);
+    }
+}
@@ -0,0 +1,87 @@
+import java.io.*;
+import java.math.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Synthetic share sets for the benchmarks.
+ */
+final class ShareSets {
+    private static final int[] BASES = { 2, 3, 6, 7, 8, 10, 12, 15, 16 };
+
+    private ShareSets() {
+    }
+
+    /**
+     * A generated share set with the polynomial and corruption it was built
+     * from.
+     */
+    static final class Synthetic {
+        ShamirSecretSolver.TestCaseData data;
+        BigInteger[] coeffs;
+        boolean[] corrupt;
+
+        /** Positions of the first k uncorrupted shares. */
+        int[] cleanSubset() {
+            int[] idx = new int[data.k];
+            for (int i = 0, m = 0; m < idx.length; i++) {
+                if (!corrupt[i])
+                    idx[m++] = i;
+            }
+            return idx;
+        }
+    }
+
+    static ShamirSecretSolver.TestCaseData generate(int n, int k, int bits, int corrupt, long seed) {
+        return synthesize(n, k, bits, corrupt, seed).data;
+    }
+
+    /**
+     * n shares at x = 1..n of a random degree k-1 polynomial whose coefficients
+     * have the given bit length, with `corrupt` shares chosen at random (seeded)
+     * perturbed.
+     */
+    static Synthetic synthesize(int n, int k, int bits, int corrupt, long seed) {
+        Random rnd = new Random(seed);
+        BigInteger[] coeffs = new BigInteger[k];
+        for (int i = 0; i < k; i++)
+            coeffs[i] = new BigInteger(bits, rnd);
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            order.add(i);
+        Collections.shuffle(order, rnd);
+        Set<Integer> bad = new HashSet<>(order.subList(0, Math.min(corrupt, n)));
+        Synthetic s = new Synthetic();
+        s.coeffs = coeffs;
+        s.corrupt = new boolean[n];
+        List<ShamirSecretSolver.Point> pts = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            BigInteger x = BigInteger.valueOf(i + 1);
+            BigInteger y = ShamirSecretSolver.evaluate(coeffs, x);
+            if (bad.contains(i)) {
+                y = y.add(BigInteger.valueOf(1 + rnd.nextInt(1000)));
+                s.corrupt[i] = true;
+            }
+            pts.add(new ShamirSecretSolver.Point(i, x, y));
+        }
+        s.data = new ShamirSecretSolver.TestCaseData(n, k, pts);
+        return s;
+    }
+
+    /** Write a share set in the test-case JSON layout, cycling through bases. */
+    static Path writeJson(ShamirSecretSolver.TestCaseData data) throws IOException {
+        Path file = Files.createTempFile("shares", ".json");
+        file.toFile().deleteOnExit();
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            w.write("{\n    \"keys\": {\n        \"n\": " + data.n + ",\n        \"k\": " + data.k + "\n    }");
+            for (int i = 0; i < data.points.size(); i++) {
+                ShamirSecretSolver.Point p = data.points.get(i);
+                int base = BASES[i % BASES.length];
+                w.write(",\n    \"" + p.x + "\": {\n        \"base\": \"" + base + "\",\n        \"value\": \""
+                        + p.y.toString(base) + "\"\n    }");
+            }
+            w.write("\n}\n");
+        }
+        return file;
+    }
+}
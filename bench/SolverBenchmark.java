@@ -0,0 +1,222 @@
+import java.math.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Benchmarks for the solver, validator, parser and full search over
+ * parameter grids of (n, k, value bit length, corrupt shares).
+ *
+ * <pre>
+ * javac -d out *.java bench/*.java
+ * java -cp out SolverBenchmark [solve] [interpolate] [multiply] [validate] [parse] [search] [subset] [--quick]
+ * </pre>
+ *
+ * With no group names every group runs. --quick shortens the iterations and
+ * trims the grids for a smoke run.
+ */
+public class SolverBenchmark {
+    public static void main(String[] args) throws Exception {
+        Set<String> groups = new LinkedHashSet<>();
+        boolean quick = false;
+        for (String a : args) {
+            if (a.equals("--quick"))
+                quick = true;
+            else
+                groups.add(a);
+        }
+        if (groups.isEmpty())
+            groups.addAll(List.of("solve", "interpolate", "multiply", "validate", "parse", "search", "subset"));
+        if (quick) {
+            Bench.warmupIterations = 1;
+            Bench.measureIterations = 2;
+            Bench.iterationMillis = 150;
+        }
+        int[] bitGrid = quick ? new int[] { 8, 64 } : new int[] { 8, 64, 1024 };
+
+        if (groups.contains("solve")) {
+            for (ShamirSecretSolver.SolveMode mode : ShamirSecretSolver.SolveMode.values()) {
+                for (int k : quick ? new int[] { 7 } : new int[] { 3, 7, 16, 32 }) {
+                    for (int bits : bitGrid)
+                        solve(mode, k, bits);
+                }
+            }
+        }
+        if (groups.contains("interpolate")) {
+            // a word-sized NTT prime (Montgomery field, direct transform) and 2^127 - 1
+            BigInteger ntt = BigInteger.valueOf(998244353);
+            BigInteger m127 = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+            for (BigInteger p : List.of(ntt, m127)) {
+                for (int k : quick ? new int[] { 8, 64 } : new int[] { 8, 16, 64, 256, 1024 })
+                    interpolate(Field.of(p), k);
+            }
+        }
+        if (groups.contains("multiply")) {
+            // 998244353 = 119 * 2^23 + 1 transforms directly; 2^127 - 1 goes through CRT
+            BigInteger ntt = BigInteger.valueOf(998244353);
+            BigInteger m127 = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+            for (BigInteger p : List.of(ntt, m127)) {
+                for (int len : quick ? new int[] { 256 } : new int[] { 64, 256, 1024, 4096 })
+                    multiply(p, len);
+            }
+        }
+        if (groups.contains("validate")) {
+            for (int n : quick ? new int[] { 100 } : new int[] { 10, 100, 1000 }) {
+                for (int k : new int[] { 7, 16 }) {
+                    for (int bits : bitGrid) {
+                        for (int corrupt : new int[] { 0, n / 10 })
+                            validate(n, k, bits, corrupt);
+                    }
+                }
+            }
+        }
+        if (groups.contains("parse")) {
+            for (int n : quick ? new int[] { 1000 } : new int[] { 10, 1000, 10000 }) {
+                for (int bits : quick ? new int[] { 64 } : new int[] { 64, 4096 })
+                    parse(n, bits);
+            }
+        }
+        if (groups.contains("search")) {
+            int[][] grid = { { 10, 7, 0 }, { 10, 7, 1 }, { 12, 6, 1 }, { 16, 5, 2 } };
+            for (int[] g : quick ? Arrays.copyOf(grid, 2) : grid) {
+                for (int bits : bitGrid)
+                    search(g[0], g[1], bits, g[2]);
+            }
+        }
+        if (groups.contains("subset")) {
+            BigInteger m61 = BigInteger.ONE.shiftLeft(61).subtract(BigInteger.ONE);
+            BigInteger m127 = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+            // at n=12, k=6 the y-values of 32-bit coefficients still fit in a
+            // long, so the integer solver takes its long path; from 64 bits on
+            // they overflow and it runs on BigInteger
+            int[] subsetBits = quick ? new int[] { 8, 32, 64 } : new int[] { 8, 32, 64, 1024 };
+            for (int bits : subsetBits) {
+                subset("integer", null, ShamirSecretSolver.SolveMode.EXACT, bits);
+                subset("decimal", null, ShamirSecretSolver.SolveMode.DECIMAL, bits);
+                subset("gf(2^61-1)", Field.of(m61), ShamirSecretSolver.SolveMode.EXACT, bits);
+                subset("gf(2^127-1)", Field.of(m127), ShamirSecretSolver.SolveMode.EXACT, bits);
+            }
+        }
+    }
+
+    static void solve(ShamirSecretSolver.SolveMode mode, int k, int bits) {
+        ShamirSecretSolver.TestCaseData d = ShareSets.generate(k, k, bits, 0, 1);
+        BigInteger[] x = new BigInteger[k], y = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            x[i] = d.points.get(i).x;
+            y[i] = d.points.get(i).y;
+        }
+        Bench.run("solveVandermonde", "mode=" + mode + " k=" + k + " bits=" + bits,
+                () -> Bench.consume(ShamirSecretSolver.solveVandermonde(x, y, mode)));
+    }
+
+    /**
+     * GF(p) solve on either side of FAST_INTERPOLATION_MIN_K, first checked
+     * against Newton divided differences on BigInteger residues.
+     */
+    static void interpolate(Field f, int k) {
+        ShamirSecretSolver.TestCaseData d = ShareSets.generate(k, k, f.modulus().bitLength() - 1, 0, 6);
+        BigInteger[] x = new BigInteger[k], y = new BigInteger[k];
+        for (int i = 0; i < k; i++) {
+            x[i] = f.reduce(d.points.get(i).x);
+            y[i] = f.reduce(d.points.get(i).y);
+        }
+        Field ref = new Field.PrimeField(f.modulus());
+        BigInteger[] c = new BigInteger[k], want = new BigInteger[k];
+        ShamirSecretSolver.newtonDividedDifferences(x, y, ref, c);
+        ShamirSecretSolver.newtonToMonomial(c, x, ref, want);
+        if (!Arrays.equals(want, ShamirSecretSolver.solveVandermonde(x, y, f)))
+            throw new AssertionError("interpolation mismatch for p=" + f.modulus() + ", k=" + k);
+        Bench.run("solveVandermonde", "field p bits=" + f.modulus().bitLength() + " k=" + k,
+                () -> Bench.consume(ShamirSecretSolver.solveVandermonde(x, y, f)));
+    }
+
+    /**
+     * Poly.multiply over GF(p), which hands long enough operands to Ntt;
+     * first checked against schoolbook multiplication reduced mod p.
+     */
+    static void multiply(BigInteger p, int len) {
+        Poly ring = Poly.over(Field.of(p));
+        Random rnd = new Random(len);
+        BigInteger[] a = new BigInteger[len], b = new BigInteger[len];
+        for (int i = 0; i < len; i++) {
+            a[i] = new BigInteger(p.bitLength() + 8, rnd).mod(p);
+            b[i] = new BigInteger(p.bitLength() + 8, rnd).mod(p);
+        }
+        if (!Arrays.equals(schoolbook(a, b, p), ring.multiply(a, b)))
+            throw new AssertionError("product mismatch for p=" + p + ", len=" + len);
+        Bench.run("polyMultiply", "p bits=" + p.bitLength() + " len=" + len,
+                () -> Bench.consume(ring.multiply(a, b)));
+    }
+
+    private static BigInteger[] schoolbook(BigInteger[] a, BigInteger[] b, BigInteger p) {
+        BigInteger[] r = new BigInteger[a.length + b.length - 1];
+        Arrays.fill(r, BigInteger.ZERO);
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b.length; j++)
+                r[i + j] = r[i + j].add(a[i].multiply(b[j]));
+        }
+        for (int i = 0; i < r.length; i++)
+            r[i] = r[i].mod(p);
+        return r;
+    }
+
+    static void validate(int n, int k, int bits, int corrupt) {
+        ShareSets.Synthetic s = ShareSets.synthesize(n, k, bits, corrupt, 2);
+        SubsetSolver solver = SubsetSolver.create(new ShareStore(s.data.points), new ShamirSecretSolver.Options());
+        if (!solver.solve(s.cleanSubset()))
+            throw new IllegalStateException("clean subset did not solve");
+        int[] counts = new int[n];
+        Diagnostics.Sampler mismatches = Diagnostics.log().sampler("Mismatch", null);
+        Bench.run("validateAndLog", params(n, k, bits, corrupt),
+                () -> Bench.consume(ShamirSecretSolver.validateAndLog(solver, counts, mismatches)));
+    }
+
+    static void parse(int n, int bits) throws Exception {
+        Path file = ShareSets.writeJson(ShareSets.generate(n, Math.min(n, 7), bits, 0, 3));
+        String name = file.toString();
+        Bench.run("parseJsonFile", "n=" + n + " bits=" + bits + " bytes=" + Files.size(file), () -> {
+            try {
+                Bench.consume(ShamirSecretSolver.parseJsonFile(name));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    static void search(int n, int k, int bits, int corrupt) {
+        ShamirSecretSolver.TestCaseData d = ShareSets.generate(n, k, bits, corrupt, 4);
+        ShamirSecretSolver.Options opts = new ShamirSecretSolver.Options();
+        Bench.run("reconstruct", params(n, k, bits, corrupt),
+                () -> Bench.consume(ShamirSecretSolver.reconstruct(d, opts)));
+    }
+
+    /**
+     * One op is one subset of a search that never succeeds: advance to the
+     * next combination, solve and validate it through a single reused
+     * SearchContext. B/op is then the steady-state allocation per subset.
+     */
+    static void subset(String arith, Field field, ShamirSecretSolver.SolveMode mode, int bits) {
+        int n = 12, k = 6, corrupt = 4;
+        ShamirSecretSolver.TestCaseData d = ShareSets.generate(n, k, bits, corrupt, 5);
+        ShamirSecretSolver.Options opts = new ShamirSecretSolver.Options();
+        opts.field = field;
+        opts.solveMode = mode;
+        SearchContext ctx = new SearchContext(new ShareStore(d.points), opts, null);
+        int[] idx = new int[k];
+        for (int i = 0; i < k; i++)
+            idx[i] = i;
+        int[] changed = new int[1];
+        Bench.run("searchSubset", arith + " " + params(n, k, bits, corrupt), () -> {
+            if ((changed[0] = ShamirSecretSolver.nextCombination(idx, n)) < 0) {
+                for (int i = 0; i < k; i++)
+                    idx[i] = i;
+                changed[0] = 0;
+            }
+            Bench.consume(ctx.accepts(idx, changed[0]));
+        });
+    }
+
+    private static String params(int n, int k, int bits, int corrupt) {
+        return "n=" + n + " k=" + k + " bits=" + bits + " corrupt=" + corrupt;
+    }
+}